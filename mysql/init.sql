@@ -1,5 +1,6 @@
 create table products (
     id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
     title VARCHAR(100) UNIQUE,
     distribution VARCHAR(10),
     format VARCHAR(20),
@@ -11,8 +12,25 @@ create table products (
     product_group_release_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Backs store.search.text-mode=FULLTEXT. The ngram parser indexes every two character token, so phrase
+-- searches of two characters or more match substrings much like the LIKE '%x%' filters. A single character
+-- matches nothing. Tokens containing a stopword, such as "a" or "i", are not indexed unless the server runs
+-- with innodb_ft_enable_stopword=OFF, as docker-compose.yml does.
+CREATE FULLTEXT INDEX products_title_ft ON products (title) WITH PARSER ngram;
+CREATE FULLTEXT INDEX products_store_name_ft ON products (store_name) WITH PARSER ngram;
+CREATE FULLTEXT INDEX products_product_group_title_ft ON products (product_group_title) WITH PARSER ngram;
 
+-- Back the release date range filters. InnoDB secondary indexes carry the primary key, so the page query,
+-- which only selects ids, is answered from the index without touching the rows. That also makes each of
+-- them (date, id) already: a composite index would be the same index. It would not save the sort either,
+-- since ids are only in order within one date, and a range covers many dates.
+CREATE INDEX products_release_date_idx ON products (release_date);
+CREATE INDEX products_product_group_release_date_idx ON products (product_group_release_date);
 
+
+
+-- Ids are reserved in blocks of store.id.block_size with the pooled-lo optimizer: next_val is the
+-- first id of the next unreserved block and each reservation advances it by the block size.
 CREATE TABLE products_seq (
     next_val BIGINT NOT NULL
 );
@@ -36,4 +54,33 @@ create table product_tags (
     PRIMARY KEY (product_id, tag_id),
     FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
     FOREIGN KEY (tag_id) REFERENCES tags(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- The primary key serves product to tags lookups; tag filters go the other way, from tag to products.
+CREATE INDEX product_tags_tag_id_product_id_idx ON product_tags (tag_id, product_id);
+
+-- Outbox of product changes, written in the same transaction as the change. The auto increment id follows insert
+-- order, not commit order, so the sequence number change feed consumers resume from is assigned once the event has
+-- committed, by a relay holding the lock on product_event_relay. No foreign key: events outlive deleted products.
+CREATE TABLE product_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    sequence BIGINT,
+    product_id BIGINT NOT NULL,
+    product_version BIGINT,
+    type VARCHAR(10) NOT NULL,
+    occurred_at TIMESTAMP(6) NOT NULL
+);
+
+-- Serves the retention purge.
+CREATE INDEX product_events_occurred_at_idx ON product_events (occurred_at);
+
+-- Serves consumers reading after a sequence number, and the relay reading the events without one in id order, since
+-- InnoDB appends the primary key to the index.
+CREATE UNIQUE INDEX product_events_sequence_idx ON product_events (sequence);
+
+CREATE TABLE product_event_relay (
+    id BIGINT PRIMARY KEY,
+    last_sequence BIGINT NOT NULL
+);
+
+INSERT INTO product_event_relay VALUES (1, 0);
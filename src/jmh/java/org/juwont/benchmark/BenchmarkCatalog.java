@@ -0,0 +1,140 @@
+package org.juwont.benchmark;
+
+import org.juwont.Application;
+import org.juwont.domain.MediaFormat;
+import org.juwont.web.dto.ProductDTO;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Boots the application against an in-memory H2 database in MySQL mode and seeds it with a deterministic catalog,
+ * so runs on different commits measure the same data.
+ */
+final class BenchmarkCatalog {
+
+    static final int TAGS = 50;
+    static final int STORES = 50;
+    static final int GROUPS = 1000;
+    static final int TAGS_PER_PRODUCT = 2;
+    static final Instant FIRST_RELEASE = Instant.parse("2005-01-01T00:00:00Z");
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final long RELEASE_SPAN_SECONDS = Duration.ofDays(365 * 20).toSeconds();
+
+    private BenchmarkCatalog() {
+    }
+
+    static ConfigurableApplicationContext start(final String... args) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run(args);
+    }
+
+    /**
+     * Starts the application with its web server on a random port, see {@code local.server.port}.
+     */
+    static ConfigurableApplicationContext startServer(final String... args) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("benchmark")
+                .run(Stream.concat(Stream.of("--server.port=0"), Arrays.stream(args)).toArray(String[]::new));
+    }
+
+    static void seed(final ConfigurableApplicationContext context, final int rows) {
+        final JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        final Random random = new Random(42);
+
+        final List<Object[]> tags = new ArrayList<>(TAGS);
+        for (int tag = 1; tag <= TAGS; tag++) {
+            tags.add(new Object[]{tag, tagName(tag)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tags (id, name) VALUES (?, ?)", tags);
+
+        final List<Object[]> products = new ArrayList<>(BATCH_SIZE);
+        final List<Object[]> productTags = new ArrayList<>(BATCH_SIZE * TAGS_PER_PRODUCT);
+        for (long id = 1; id <= rows; id++) {
+            final Instant releaseDate = FIRST_RELEASE.plusSeconds(random.nextLong(RELEASE_SPAN_SECONDS));
+            products.add(new Object[]{
+                    id,
+                    "Product %s".formatted(id),
+                    random.nextBoolean() ? "physical" : "digital",
+                    MediaFormat.values()[random.nextInt(MediaFormat.values().length)].name(),
+                    "USD",
+                    "%s.99".formatted(random.nextInt(50)),
+                    Timestamp.from(releaseDate),
+                    storeName(random.nextInt(STORES)),
+                    groupTitle(random.nextInt(GROUPS)),
+                    Timestamp.from(releaseDate.minus(Duration.ofDays(random.nextInt(365))))
+            });
+
+            final int firstTag = random.nextInt(TAGS);
+            for (int tag = 0; tag < TAGS_PER_PRODUCT; tag++) {
+                productTags.add(new Object[]{id, (firstTag + tag) % TAGS + 1});
+            }
+
+            if (products.size() == BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO products (id, version, title, distribution, format, currency, price, release_date,
+                                              store_name, product_group_title, product_group_release_date)
+                        VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """, products);
+                jdbcTemplate.batchUpdate("INSERT INTO product_tags (product_id, tag_id) VALUES (?, ?)", productTags);
+                products.clear();
+                productTags.clear();
+            }
+        }
+
+        // Rows were inserted with explicit ids, so move the sequences past them before the application allocates any.
+        jdbcTemplate.execute("ALTER SEQUENCE products_seq RESTART WITH %s".formatted(rows + 1));
+        jdbcTemplate.execute("ALTER SEQUENCE tags_seq RESTART WITH %s".formatted(TAGS + 1));
+    }
+
+    /**
+     * A listing page shaped like the seeded catalog, for benchmarks that only serialize.
+     */
+    static List<ProductDTO> page(final int size) {
+        return IntStream.range(0, size)
+                .mapToObj(product -> ProductDTO.builder()
+                        .id((long) product)
+                        .version(0L)
+                        .title("Product %s".formatted(product))
+                        .distribution("digital")
+                        .format(MediaFormat.MP3)
+                        .currency(Currency.getInstance("USD"))
+                        .price(new BigDecimal("15.50"))
+                        .releaseDate(FIRST_RELEASE.plus(Duration.ofDays(product)))
+                        .storeName(storeName(product % STORES))
+                        .productGroupTitle(groupTitle(product % GROUPS))
+                        .productGroupReleaseDate(FIRST_RELEASE.plus(Duration.ofDays(product)))
+                        .tags(List.of(tagName(product % TAGS), tagName((product + 1) % TAGS)))
+                        .build())
+                .toList();
+    }
+
+    static String tagName(final int tag) {
+        return "Tag %s".formatted(tag);
+    }
+
+    static String storeName(final int store) {
+        return "Store %s".formatted(store);
+    }
+
+    static String groupTitle(final int group) {
+        return "Group %s".formatted(group);
+    }
+}
@@ -0,0 +1,63 @@
+package org.juwont.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.juwont.web.converter.ProductJsonWriter;
+import org.juwont.web.dto.ProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a listing page with the reflective Jackson path and with {@link ProductJsonWriter}. Both write into
+ * the same reused buffer, so {@code gc.alloc.rate.norm} is what serializing costs on top of the response bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductJsonBenchmark {
+
+    @Param({"10", "100"})
+    int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private ObjectWriter objectWriter;
+    private List<ProductDTO> products;
+
+    @Setup
+    public void setUp() {
+        objectWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, ProductDTO.class));
+        products = BenchmarkCatalog.page(size);
+    }
+
+    @Benchmark
+    public int objectWriter() throws IOException {
+        buffer.reset();
+        objectWriter.writeValue(buffer, products);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int productJsonWriter() throws IOException {
+        buffer.reset();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            ProductJsonWriter.writeAll(generator, products);
+        }
+        return buffer.size();
+    }
+}
@@ -0,0 +1,64 @@
+package org.juwont.benchmark;
+
+import org.juwont.domain.MediaFormat;
+import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
+import org.juwont.service.mapper.ProductMapper;
+import org.juwont.web.dto.ProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductMapperBenchmark {
+
+    @Param({"0", "2", "20"})
+    int tags;
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = Product.builder()
+                .id(1L)
+                .version(0L)
+                .title("Wu Tang Clan - 36 Chambers")
+                .price(new BigDecimal("15.50"))
+                .currency(Currency.getInstance("USD"))
+                .format(MediaFormat.MP3)
+                .distribution("digital")
+                .storeName("Wu Store")
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(LongStream.rangeClosed(1, tags)
+                        .mapToObj(id -> new Tag(id, BenchmarkCatalog.tagName((int) id)))
+                        .toList())
+                .build();
+    }
+
+    @Benchmark
+    public ProductDTO toDTO() {
+        return productMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public ProductDTO toDTOWithTagNames() {
+        return productMapper.toDTO(product, List.of("Hip Hop", "Jazz"));
+    }
+}
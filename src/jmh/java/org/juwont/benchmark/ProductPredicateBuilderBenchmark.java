@@ -0,0 +1,77 @@
+package org.juwont.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.juwont.domain.TagMatchMode;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.entity.Product;
+import org.juwont.repository.builder.ProductPredicateBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the filter predicates only; no SQL is rendered or executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductPredicateBuilderBenchmark {
+
+    @Param({"SUBSTRING", "FULLTEXT"})
+    TextSearchMode textMode;
+
+    private ConfigurableApplicationContext context;
+    private CriteriaBuilder criteriaBuilder;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        criteriaBuilder = context.getBean(EntityManagerFactory.class).getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Predicate noFilters() {
+        return newBuilder().build();
+    }
+
+    @Benchmark
+    public Predicate allFilters() {
+        return newBuilder()
+                .filterByStoreName("Store 7")
+                .filterByTitle("Product 1")
+                .filterByGroupTitle("Group 3")
+                .filterByMinReleaseDate(BenchmarkCatalog.FIRST_RELEASE)
+                .filterByMaxReleaseDate(Instant.parse("2015-01-01T00:00:00Z"))
+                .filterByMaxGroupReleaseDate(Instant.parse("2015-01-01T00:00:00Z"))
+                .filterByMinGroupReleaseDate(BenchmarkCatalog.FIRST_RELEASE)
+                .filterByTags(List.of("Tag 1", "Tag 2"), TagMatchMode.ANY)
+                .filterByIdAfter(1_000L)
+                .build();
+    }
+
+    private ProductPredicateBuilder newBuilder() {
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<Product> root = query.from(Product.class);
+        return new ProductPredicateBuilder(criteriaBuilder, query, root, textMode);
+    }
+}
@@ -0,0 +1,108 @@
+package org.juwont.benchmark;
+
+import org.juwont.domain.MediaFormat;
+import org.juwont.service.ProductService;
+import org.juwont.service.catalog.ProductCatalog;
+import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end service calls against a seeded catalog, with the product caches disabled so every call reaches
+ * the database, or the in-memory catalog when {@code catalog} is true. JMH forks a fresh JVM, and so a freshly
+ * seeded catalog, for every benchmark and row count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean catalog;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCatalog.start("--store.catalog.enabled=" + catalog);
+        BenchmarkCatalog.seed(context, rows);
+        // Seeding bypasses the service, so load what it wrote.
+        context.getBean(ProductCatalog.class).reload();
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> findFirstPage() {
+        return productService.findByFilters(ProductFilterDTO.builder().build());
+    }
+
+    @Benchmark
+    public List<ProductDTO> findMiddlePage() {
+        return productService.findByFilters(ProductFilterDTO.builder()
+                .page(rows / 20)
+                .build());
+    }
+
+    @Benchmark
+    public List<ProductDTO> findByStoreName() {
+        return productService.findByFilters(ProductFilterDTO.builder()
+                .storeName(BenchmarkCatalog.storeName(7))
+                .build());
+    }
+
+    @Benchmark
+    public List<ProductDTO> findByTags() {
+        return productService.findByFilters(ProductFilterDTO.builder()
+                .tags(List.of(BenchmarkCatalog.tagName(3), BenchmarkCatalog.tagName(4)))
+                .build());
+    }
+
+    @Benchmark
+    public List<ProductDTO> findByReleaseWindow() {
+        return productService.findByFilters(ProductFilterDTO.builder()
+                .releaseDateBefore(Instant.parse("2010-01-01T00:00:00Z"))
+                .releaseDateAfter(Instant.parse("2010-03-01T00:00:00Z"))
+                .build());
+    }
+
+    @Benchmark
+    public ProductDTO createProduct() {
+        return productService.createProduct(CreateProductDTO.builder()
+                .title("Benchmark %s".formatted(created.incrementAndGet()))
+                .price("15.50")
+                .currency("USD")
+                .format(MediaFormat.MP3)
+                .isPhysical(false)
+                .storeName(BenchmarkCatalog.storeName(1))
+                .productGroupTitle(BenchmarkCatalog.groupTitle(1))
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(List.of(BenchmarkCatalog.tagName(1), BenchmarkCatalog.tagName(2)))
+                .build());
+    }
+}
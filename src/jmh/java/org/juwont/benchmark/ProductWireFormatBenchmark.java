@@ -0,0 +1,75 @@
+package org.juwont.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.juwont.web.converter.ProductJsonWriter;
+import org.juwont.web.dto.ProductDTO;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a listing page in each content type the API negotiates, with and without the gzip content coding Tomcat
+ * applies. The score is the time to produce the response body. The bytes on the wire are reported next to it as the
+ * {@code bytes} secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductWireFormatBenchmark {
+
+    @Param({"10", "100"})
+    int size;
+
+    @Param({"json", "cbor"})
+    String format;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+    private JsonFactory factory;
+    private List<ProductDTO> products;
+
+    @Setup
+    public void setUp() {
+        factory = format.equals("cbor") ? new CBORFactory() : new JsonFactory();
+        products = BenchmarkCatalog.page(size);
+    }
+
+    @Benchmark
+    public int write(final WireSize wireSize) throws IOException {
+        buffer.reset();
+        try (OutputStream body = gzip ? new GZIPOutputStream(buffer) : buffer;
+             JsonGenerator generator = factory.createGenerator(body, JsonEncoding.UTF8)) {
+            ProductJsonWriter.writeAll(generator, products);
+        }
+        wireSize.bytes = buffer.size();
+        return buffer.size();
+    }
+
+    /**
+     * Assigned rather than added to on every call. The body is the same each time, so the value JMH reads at the
+     * end of an iteration is the size of one response.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WireSize {
+        public long bytes;
+    }
+}
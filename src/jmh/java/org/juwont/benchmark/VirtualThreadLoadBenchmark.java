@@ -0,0 +1,80 @@
+package org.juwont.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the HTTP API from many concurrent clients with request handling on platform threads and then on
+ * virtual threads, keeping the Hikari pool the same size in both runs. Sample time mode reports the latency
+ * percentiles, throughput mode the requests per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+public class VirtualThreadLoadBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"10"})
+    int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkCatalog.startServer(
+                "--spring.threads.virtual.enabled=%s".formatted(virtualThreads),
+                "--spring.datasource.hikari.maximum-pool-size=%s".formatted(poolSize));
+        BenchmarkCatalog.seed(context, ROWS);
+
+        httpClient = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:%s".formatted(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getProduct() throws IOException, InterruptedException {
+        return send("/api/product/%s".formatted(ThreadLocalRandom.current().nextInt(1, ROWS + 1)));
+    }
+
+    @Benchmark
+    public int findByTags() throws IOException, InterruptedException {
+        final String tag = BenchmarkCatalog.tagName(ThreadLocalRandom.current().nextInt(1, BenchmarkCatalog.TAGS + 1));
+        return send("/api/products?tags=%s".formatted(URLEncoder.encode(tag, StandardCharsets.UTF_8)));
+    }
+
+    private int send(final String path) throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,12 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param fetchSize number of rows the JDBC driver fetches per round trip while streaming an export.
+ * @param batchSize number of products written to the response before the persistence context is cleared.
+ */
+@ConfigurationProperties(prefix = "store.export")
+public record ExportProperties(@DefaultValue("1000") int fetchSize,
+                               @DefaultValue("500") int batchSize) {}
@@ -0,0 +1,10 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param chunkSize number of products written per transaction by the bulk create, update and delete endpoints.
+ */
+@ConfigurationProperties(prefix = "store.ingestion")
+public record IngestionProperties(@DefaultValue("500") int chunkSize) {}
@@ -0,0 +1,18 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled           serve reads from the caches. Disabled for benchmarks that measure the database path.
+ * @param maximumSize       number of single products kept in memory.
+ * @param maximumPages      number of filter result pages kept in memory.
+ * @param expireAfterWrite  upper bound on how long an entry can be served, covering reads that raced a write.
+ */
+@ConfigurationProperties(prefix = "store.products.cache")
+public record ProductCacheProperties(@DefaultValue("true") boolean enabled,
+                                     @DefaultValue("10000") long maximumSize,
+                                     @DefaultValue("1000") long maximumPages,
+                                     @DefaultValue("5m") Duration expireAfterWrite) {}
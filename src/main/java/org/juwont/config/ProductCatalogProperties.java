@@ -0,0 +1,19 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled         answer listings from the in-memory catalog instead of the database.
+ * @param refreshInterval delay between full reloads, which pick up writes made by other instances.
+ * @param fetchSize       number of rows the JDBC driver fetches per round trip while loading the catalog.
+ * @param maxOutOfOrder   new products with an id below the highest one loaded that are held until the next reload.
+ *                        One more marks the catalog stale and reloads it straight away.
+ */
+@ConfigurationProperties(prefix = "store.catalog")
+public record ProductCatalogProperties(@DefaultValue("false") boolean enabled,
+                                       @DefaultValue("15m") Duration refreshInterval,
+                                       @DefaultValue("1000") int fetchSize,
+                                       @DefaultValue("10000") int maxOutOfOrder) {}
@@ -0,0 +1,22 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param longPollTimeout how long a change feed request waits for new events before answering with none.
+ * @param pollInterval    how often waiting requests check for events written by other instances.
+ * @param relayBatchSize  most events given sequence numbers in one relay transaction.
+ * @param retention       age after which events are deleted.
+ * @param purgeInterval   time between deletions of events past their retention.
+ * @param maxLimit        largest number of events returned by one request.
+ */
+@ConfigurationProperties(prefix = "store.events")
+public record ProductEventProperties(@DefaultValue("30s") Duration longPollTimeout,
+                                     @DefaultValue("1s") Duration pollInterval,
+                                     @DefaultValue("1000") int relayBatchSize,
+                                     @DefaultValue("7d") Duration retention,
+                                     @DefaultValue("1h") Duration purgeInterval,
+                                     @DefaultValue("1000") int maxLimit) {}
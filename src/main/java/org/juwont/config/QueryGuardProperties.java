@@ -0,0 +1,21 @@
+package org.juwont.config;
+
+import org.juwont.domain.ExpensiveQueryMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxPageSize       largest {@code size} a listing accepts. Larger requests fail with 400.
+ * @param maxOffset         deepest offset, {@code (page - 1) * size}, served without being flagged as expensive.
+ * @param timeout           JDBC timeout of each listing query. The driver counts in whole seconds.
+ * @param expensiveMode     what happens to queries the cost estimator flags as expensive.
+ * @param degradedPageSize  page size expensive queries are capped to in {@code DEGRADE} mode.
+ */
+@ConfigurationProperties(prefix = "store.products.query")
+public record QueryGuardProperties(@DefaultValue("100") int maxPageSize,
+                                   @DefaultValue("10000") int maxOffset,
+                                   @DefaultValue("5s") Duration timeout,
+                                   @DefaultValue("DEGRADE") ExpensiveQueryMode expensiveMode,
+                                   @DefaultValue("10") int degradedPageSize) {}
@@ -0,0 +1,19 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled              route read-only transactions to the replica. When disabled the replica settings are ignored.
+ * @param readYourWritesWindow after a write on this instance, keep reads on the primary for this long so they see it.
+ *                             Set it to the replication lag you are willing to hide; {@code 0} turns it off.
+ */
+@ConfigurationProperties(prefix = "store.datasource.replica")
+public record ReplicaDataSourceProperties(@DefaultValue("false") boolean enabled,
+                                          String url,
+                                          String username,
+                                          String password,
+                                          @DefaultValue("10") int maximumPoolSize,
+                                          @DefaultValue("2s") Duration readYourWritesWindow) {}
@@ -0,0 +1,12 @@
+package org.juwont.config;
+
+import org.juwont.domain.TextSearchMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param textMode how the title, store name and group title filters match. {@code SUBSTRING} keeps the
+ *                 {@code LIKE '%x%'} semantics, {@code FULLTEXT} uses the MySQL ngram FULLTEXT indexes.
+ */
+@ConfigurationProperties(prefix = "store.search")
+public record SearchProperties(@DefaultValue("SUBSTRING") TextSearchMode textMode) {}
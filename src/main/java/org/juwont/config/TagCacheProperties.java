@@ -0,0 +1,10 @@
+package org.juwont.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param maximumSize number of tag names kept in memory before the least used are evicted.
+ */
+@ConfigurationProperties(prefix = "store.tags.cache")
+public record TagCacheProperties(@DefaultValue("10000") long maximumSize) {}
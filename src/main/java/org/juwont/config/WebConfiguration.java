@@ -0,0 +1,57 @@
+package org.juwont.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.juwont.web.converter.ProductListHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    /**
+     * Picked up by Spring Boot ahead of the default converters, so listings skip the reflective Jackson path.
+     * Shares the factory of the application's {@code ObjectMapper} and with it the generator settings. Ordered
+     * first, so a request accepting anything still gets JSON.
+     */
+    @Bean
+    @Order(1)
+    public ProductListHttpMessageConverter productListJsonConverter(final ObjectMapper objectMapper) {
+        return new ProductListHttpMessageConverter(objectMapper.getFactory(), MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Listings as CBOR for {@code Accept: application/cbor}. Other responses in CBOR come from the converter Spring
+     * adds once {@code jackson-dataformat-cbor} is on the classpath.
+     */
+    @Bean
+    @Order(2)
+    public ProductListHttpMessageConverter productListCborConverter() {
+        return new ProductListHttpMessageConverter(new CBORFactory(), MediaType.APPLICATION_CBOR);
+    }
+
+    /**
+     * Every API response, errors included, is negotiated between JSON and CBOR on {@code Accept}, so caches have to
+     * key on it. Added before the handler runs, since streamed and long-polled responses commit their headers early.
+     */
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(final HttpServletRequest request,
+                                     final HttpServletResponse response,
+                                     final Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
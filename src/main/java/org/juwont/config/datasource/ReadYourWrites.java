@@ -0,0 +1,28 @@
+package org.juwont.config.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers when this instance last wrote, so reads issued shortly afterwards can be kept on the primary
+ * until the replica has had time to catch up.
+ */
+public class ReadYourWrites {
+
+    private final long windowNanos;
+    private final AtomicLong lastWriteNanos = new AtomicLong();
+    private volatile boolean written;
+
+    public ReadYourWrites(final Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite() {
+        lastWriteNanos.set(System.nanoTime());
+        written = true;
+    }
+
+    public boolean isActive() {
+        return windowNanos > 0 && written && System.nanoTime() - lastWriteNanos.get() < windowNanos;
+    }
+}
@@ -0,0 +1,7 @@
+package org.juwont.domain;
+
+public enum ExpensiveQueryMode {
+    REJECT,
+    DEGRADE,
+    OFF;
+}
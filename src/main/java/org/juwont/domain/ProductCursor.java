@@ -0,0 +1,28 @@
+package org.juwont.domain;
+
+import org.juwont.service.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in the product listing. Listings are ordered by id, so the cursor only
+ * needs to remember the id of the last product a client has seen.
+ */
+public record ProductCursor(Long lastId) {
+
+    public static ProductCursor decode(final String cursor) {
+        try {
+            final byte[] decoded = Base64.getUrlDecoder().decode(cursor);
+            return new ProductCursor(Long.parseLong(new String(decoded, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package org.juwont.domain;
+
+import org.juwont.web.dto.ProductDTO;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Identifies one state of a product. Any update increments the version, so a strong ETag can be derived from
+ * the pair without hashing the product itself.
+ */
+public record ProductVersion(Long id, Long version) {
+
+    public static ProductVersion of(final ProductDTO product) {
+        return new ProductVersion(product.id(), product.version());
+    }
+
+    public String eTag() {
+        return "%s-%s".formatted(id, version);
+    }
+
+    /**
+     * @return a weak ETag that changes whenever a product on the page changes, or the page gains, loses or
+     * reorders products. Weak, because it follows the product versions rather than the bytes: the page is the
+     * same whether sent as JSON or CBOR, compressed or not. Tomcat also only compresses responses with a weak ETag.
+     */
+    public static String eTag(final List<ProductVersion> page) {
+        final String versions = page.stream()
+                .map(ProductVersion::eTag)
+                .collect(Collectors.joining(","));
+        return "W/\"%s\"".formatted(DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8)));
+    }
+}
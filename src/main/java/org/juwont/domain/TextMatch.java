@@ -0,0 +1,57 @@
+package org.juwont.domain;
+
+import java.util.Locale;
+
+/**
+ * The rule the title, store name and group title filters follow in {@link TextSearchMode#SUBSTRING} mode: a
+ * {@code LIKE '%text%'} with the wildcards of the text escaped, under MySQL's default {@code utf8mb4_0900_ai_ci}
+ * collation. That collation ignores case and accents, which in memory can only be reproduced exactly for printable
+ * ASCII, so {@link #isExact} tells callers when {@link #contains} gives the database's answer.
+ */
+public final class TextMatch {
+
+    /**
+     * Not a backslash, which MySQL treats as an escape inside string literals as well.
+     */
+    public static final char LIKE_ESCAPE = '!';
+
+    private TextMatch() {
+    }
+
+    /**
+     * @return the {@code LIKE} pattern matching values that contain {@code text}, to be used with {@link #LIKE_ESCAPE}.
+     */
+    public static String containsPattern(final String text) {
+        final StringBuilder pattern = new StringBuilder(text.length() + 2).append('%');
+        for (final char c : text.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * @return whether {@link #contains} decides the same as the database for this value and filter in this mode.
+     * {@code FULLTEXT} matches by ngram tokens, which a substring check cannot reproduce.
+     */
+    public static boolean isExact(final TextSearchMode mode, final String value, final String filter) {
+        return mode == TextSearchMode.SUBSTRING && isPrintableAscii(value) && isPrintableAscii(filter);
+    }
+
+    /**
+     * @return whether {@code value} contains {@code filter} ignoring case. A {@code null} filter matches everything
+     * and a {@code null} value nothing, as in SQL.
+     */
+    public static boolean contains(final String value, final String filter) {
+        if (filter == null) {
+            return true;
+        }
+        return value != null && value.toLowerCase(Locale.ROOT).contains(filter.toLowerCase(Locale.ROOT));
+    }
+
+    public static boolean isPrintableAscii(final String text) {
+        return text == null || text.chars().allMatch(c -> c >= ' ' && c <= '~');
+    }
+}
@@ -0,0 +1,6 @@
+package org.juwont.domain;
+
+public enum TextSearchMode {
+    SUBSTRING,
+    FULLTEXT;
+}
@@ -1,43 +1,62 @@
 package org.juwont.entity;
 
-import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.juwont.domain.MediaFormat;
+import org.juwont.repository.id.BlockSequence;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Currency;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
+/**
+ * Updated with dynamic SQL, so an {@code UPDATE} only sets the columns that changed. Tags are a set, so Hibernate
+ * writes a change to them as the rows added and removed from {@code product_tags} rather than recreating them all.
+ */
 @Data
 @Entity
+@DynamicUpdate
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Table(name = "products", uniqueConstraints = {
         @UniqueConstraint(columnNames = "title")
+}, indexes = {
+        @Index(name = "products_release_date_idx", columnList = "release_date"),
+        @Index(name = "products_product_group_release_date_idx", columnList = "product_group_release_date")
 })
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
-    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 1)
+    @BlockSequence(name = "products_seq")
     Long id;
+
+    /**
+     * Declared with its default so {@code ddl-auto=update} adds the column to an existing table with every row at 0.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    Long version;
     String title;
     String distribution;
 
@@ -50,11 +69,19 @@ public class Product {
     String productGroupTitle;
     Instant productGroupReleaseDate;
 
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "product_tags",
             joinColumns = @JoinColumn(name = "product_id"),
-            inverseJoinColumns = @JoinColumn(name = "tag_id")
+            inverseJoinColumns = @JoinColumn(name = "tag_id"),
+            indexes = @Index(name = "product_tags_tag_id_product_id_idx", columnList = "tag_id, product_id")
     )
-    List<Tag> tags;
-}
\ No newline at end of file
+    Set<Tag> tags;
+
+    public static class ProductBuilder {
+        public ProductBuilder tags(final Collection<Tag> tags) {
+            this.tags = tags == null ? null : new LinkedHashSet<>(tags);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.juwont.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.juwont.domain.ProductEventType;
+
+import java.time.Instant;
+
+/**
+ * Outbox row describing one product change. The id is assigned by the database at insert, but a transaction can
+ * commit long after a later one, so ids do not follow commit order. The sequence number change feed consumers resume
+ * from is assigned after commit instead, by {@link org.juwont.service.feed.ProductChangeFeed}, and stays {@code null}
+ * until then.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "product_events", indexes = {
+        @Index(name = "product_events_occurred_at_idx", columnList = "occurred_at"),
+        @Index(name = "product_events_sequence_idx", columnList = "sequence", unique = true)
+})
+public class ProductEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    Long sequence;
+    Long productId;
+    Long productVersion;
+
+    @Enumerated(EnumType.STRING)
+    ProductEventType type;
+    Instant occurredAt;
+}
@@ -0,0 +1,27 @@
+package org.juwont.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row the change feed relay locks while it numbers events, holding the last sequence number it handed
+ * out. Relays on every instance take turns on it.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_event_relay")
+public class ProductEventRelay {
+
+    public static final Long ID = 1L;
+
+    @Id
+    Long id;
+
+    Long lastSequence;
+}
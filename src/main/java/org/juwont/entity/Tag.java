@@ -1,39 +1,53 @@
 package org.juwont.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.juwont.repository.id.BlockSequence;
 
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Equal by name, which is unique, so a cached tag matches the managed instance of the same tag in a product's set.
+ */
 @Entity
 @Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @RequiredArgsConstructor
 @Table(name = "tags", uniqueConstraints = {
         @UniqueConstraint(columnNames = "name")
 })
 public class Tag {
 
+    public static final int MAX_NAME_LENGTH = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tags_seq")
-    @SequenceGenerator(name = "tags_seq", sequenceName = "tags_seq", allocationSize = 1)
+    @BlockSequence(name = "tags_seq")
     Long id;
 
+    @EqualsAndHashCode.Include
+    @Column(length = MAX_NAME_LENGTH)
     String name;
 
+    @ToString.Exclude
     @ManyToMany(mappedBy = "tags", fetch = FetchType.LAZY)
     List<Product> products = new ArrayList<>();
 
     public Tag(String name) {
         this.name = name;
     }
+
+    public Tag(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
 }
@@ -0,0 +1,135 @@
+package org.juwont.repository;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.juwont.entity.ProductEvent;
+import org.juwont.entity.ProductEventRelay;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Repository
+@Timed(value = "store.repository", histogram = true)
+@RequiredArgsConstructor
+public class ProductEventRepository {
+
+    private static final int ROWS_PER_INSERT = 1000;
+
+    private final EntityManager entityManager;
+
+    public ProductEvent append(final ProductEvent event) {
+        entityManager.persist(event);
+        return event;
+    }
+
+    /**
+     * Inserts the events with multi-row statements of up to {@value #ROWS_PER_INSERT} rows. The ids are
+     * assigned by the database and not read back.
+     */
+    public void appendAll(final List<ProductEvent> events) {
+        for (int from = 0; from < events.size(); from += ROWS_PER_INSERT) {
+            final List<ProductEvent> rows = events.subList(from, Math.min(from + ROWS_PER_INSERT, events.size()));
+            final String values = IntStream.range(0, rows.size())
+                    .mapToObj(i -> "(?%s, ?%s, ?%s, ?%s)".formatted(4 * i + 1, 4 * i + 2, 4 * i + 3, 4 * i + 4))
+                    .collect(Collectors.joining(", "));
+            final Query insert = entityManager.createNativeQuery(
+                    "INSERT INTO product_events (product_id, product_version, type, occurred_at) VALUES " + values);
+            for (int i = 0; i < rows.size(); i++) {
+                final ProductEvent event = rows.get(i);
+                insert.setParameter(4 * i + 1, event.getProductId());
+                insert.setParameter(4 * i + 2, event.getProductVersion());
+                insert.setParameter(4 * i + 3, event.getType().name());
+                insert.setParameter(4 * i + 4, event.getOccurredAt());
+            }
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} events with a sequence number above {@code after}, in sequence order.
+     */
+    public List<ProductEvent> findAfter(final long after, final int limit) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductEvent> query = criteriaBuilder.createQuery(ProductEvent.class);
+        final Root<ProductEvent> root = query.from(ProductEvent.class);
+
+        query.select(root)
+                .where(criteriaBuilder.greaterThan(root.get("sequence"), after))
+                .orderBy(criteriaBuilder.asc(root.get("sequence")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public Optional<Long> findLatestSequence() {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<ProductEvent> root = query.from(ProductEvent.class);
+
+        query.select(criteriaBuilder.max(root.get("sequence")));
+
+        return Optional.ofNullable(entityManager.createQuery(query).getSingleResult());
+    }
+
+    public boolean hasUnsequenced() {
+        return !findUnsequenced(1).isEmpty();
+    }
+
+    /**
+     * @return up to {@code limit} committed events without a sequence number, in id order.
+     */
+    public List<ProductEvent> findUnsequenced(final int limit) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductEvent> query = criteriaBuilder.createQuery(ProductEvent.class);
+        final Root<ProductEvent> root = query.from(ProductEvent.class);
+
+        query.select(root)
+                .where(criteriaBuilder.isNull(root.get("sequence")))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Locks the relay row until the end of the transaction, waiting for a relay running elsewhere to commit.
+     */
+    public Optional<ProductEventRelay> lockRelay() {
+        return Optional.ofNullable(
+                entityManager.find(ProductEventRelay.class, ProductEventRelay.ID, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    /**
+     * Creates the relay row, continuing from the highest sequence number already assigned.
+     */
+    public void createRelay() {
+        entityManager.persist(new ProductEventRelay(ProductEventRelay.ID, findLatestSequence().orElse(0L)));
+        entityManager.flush();
+    }
+
+    /**
+     * @return the number of events deleted.
+     */
+    public int deleteOccurredBefore(final Instant cutoff) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaDelete<ProductEvent> delete = criteriaBuilder.createCriteriaDelete(ProductEvent.class);
+        final Root<ProductEvent> root = delete.from(ProductEvent.class);
+
+        delete.where(criteriaBuilder.lessThan(root.get("occurredAt"), cutoff));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+}
@@ -1,26 +1,60 @@
 package org.juwont.repository;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CompoundSelection;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.juwont.config.QueryGuardProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.ProductVersion;
 import org.juwont.repository.builder.ProductPredicateBuilder;
+import org.juwont.repository.projection.FacetCount;
+import org.juwont.repository.projection.ProductRow;
 import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
 import org.juwont.web.dto.ProductFilterDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Repository
+@Timed(value = "store.repository", histogram = true)
 @RequiredArgsConstructor
 public class ProductRepository {
 
     @Autowired
     private final EntityManager entityManager;
+    private final SearchProperties searchProperties;
+    private final QueryGuardProperties queryGuardProperties;
+    private final MeterRegistry meterRegistry;
 
     public Product create(final Product product) {
         entityManager.persist(product);
@@ -28,22 +62,265 @@ public class ProductRepository {
         return product;
     }
 
+    /**
+     * Persists all products and flushes once, letting Hibernate group the inserts into JDBC batches.
+     */
+    public List<Product> createAll(final List<Product> products) {
+        products.forEach(entityManager::persist);
+        entityManager.flush();
+        return products;
+    }
+
     public Optional<Product> findProduct(final Long id) {
         return Optional.ofNullable(entityManager.find(Product.class, id));
     }
 
+    /**
+     * @return the current version of the product, without loading the row into the persistence context.
+     */
+    public Optional<Long> findVersion(final Long id) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(root.get("version"))
+                .where(criteriaBuilder.equal(root.get("id"), id));
+
+        return entityManager.createQuery(query)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Flushes the changes made to a managed product, so the returned product carries the incremented version and a
+     * concurrent update is reported here rather than at commit. No merge: the product is already managed, and
+     * merging it only walks the entity to copy it onto itself.
+     */
     public Product update(final Product product) {
-        entityManager.merge(product);
+        entityManager.flush();
         return product;
     }
 
-    public List<Product> filter(final ProductFilterDTO filters) {
+    /**
+     * Reads the page as {@link ProductRow} projections, one per product and tag, so no entity is loaded into
+     * the persistence context. Each query is cancelled by the driver after {@code store.products.query.timeout}.
+     * Records the time taken and the products returned, tagged by the combination
+     * of filters in use, as {@code store.products.filter} and {@code store.products.filter.rows}.
+     */
+    public List<ProductRow> filter(final ProductFilterDTO filters) {
+        final String activeFilters = filters.activeFilters();
+        final Timer.Sample sample = Timer.start(meterRegistry);
+
+        final List<Long> ids = findPageIds(filters);
+        final List<ProductRow> rows = ids.isEmpty() ? List.of() : findRowsWithTagNames(ids);
+
+        sample.stop(Timer.builder("store.products.filter")
+                .tag("filters", activeFilters)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        DistributionSummary.builder("store.products.filter.rows")
+                .tag("filters", activeFilters)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(ids.size());
+        return rows;
+    }
+
+    /**
+     * @return the id and version of every product on the page, in page order, without loading the products.
+     */
+    public List<ProductVersion> findPageVersions(final ProductFilterDTO filters) {
+        return findPage(filters, ProductVersion.class, (criteriaBuilder, root) ->
+                criteriaBuilder.construct(ProductVersion.class, root.get("id"), root.get("version")));
+    }
+
+    /**
+     * @return the ids of the products on the page, in page order.
+     */
+    public List<Long> findPageIds(final ProductFilterDTO filters) {
+        return findPage(filters, Long.class, (criteriaBuilder, root) -> root.get("id"));
+    }
+
+    private <T> List<T> findPage(final ProductFilterDTO filters,
+                                 final Class<T> resultType,
+                                 final BiFunction<CriteriaBuilder, Root<Product>, Selection<? extends T>> selection) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> query = criteriaBuilder.createQuery(resultType);
+        final Root<Product> root = query.from(Product.class);
+
+        final ProductCursor cursor = Optional.ofNullable(filters.cursor())
+                .map(ProductCursor::decode)
+                .orElse(null);
+
+        final Predicate filterPredicate = filterPredicates(criteriaBuilder, query, root, filters)
+                .filterByIdAfter(cursor == null ? null : cursor.lastId())
+                .build();
+
+        final Path<Long> id = root.get("id");
+        query.select(selection.apply(criteriaBuilder, root))
+                .where(filterPredicate)
+                .orderBy(criteriaBuilder.asc(id));
+
+        final TypedQuery<T> pageQuery = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_TIMEOUT, queryTimeoutSeconds())
+                .setMaxResults(filters.size());
+
+        // A cursor already positions the page, so only offset-paged requests skip rows.
+        if (cursor == null) {
+            pageQuery.setFirstResult((filters.page() - 1) * filters.size());
+        }
+        return pageQuery.getResultList();
+    }
+
+    /**
+     * @return the products with the given ids as {@link ProductRow}s, one per product and tag, ordered by id.
+     */
+    public List<ProductRow> findRowsWithTagNames(final List<Long> ids) {
         final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        final CriteriaQuery<Product> query = criteriaBuilder.createQuery(Product.class);
+        final CriteriaQuery<ProductRow> query = criteriaBuilder.createQuery(ProductRow.class);
         final Root<Product> root = query.from(Product.class);
 
-        final ProductPredicateBuilder predicateBuilder = new ProductPredicateBuilder(criteriaBuilder, root);
-        final Predicate filterPredicate = predicateBuilder
+        query.select(productRow(criteriaBuilder, root))
+                .where(root.get("id").in(ids))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_TIMEOUT, queryTimeoutSeconds())
+                .getResultList();
+    }
+
+    /**
+     * JDBC counts query timeouts in whole seconds, so the configured timeout is rounded up.
+     */
+    private int queryTimeoutSeconds() {
+        return (int) Math.max(1, (queryGuardProperties.timeout().toMillis() + 999) / 1000);
+    }
+
+    /**
+     * Streams every product as {@link ProductRow}s ordered by id, read through a JDBC cursor of
+     * {@code fetchSize} rows. Must be consumed inside a transaction.
+     */
+    public Stream<ProductRow> streamAllRows(final int fetchSize) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<ProductRow> query = criteriaBuilder.createQuery(ProductRow.class);
+        final Root<Product> root = query.from(Product.class);
+
+        query.select(productRow(criteriaBuilder, root))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private static CompoundSelection<ProductRow> productRow(final CriteriaBuilder criteriaBuilder,
+                                                            final Root<Product> root) {
+        final Join<Product, Tag> tags = root.join("tags", JoinType.LEFT);
+        return criteriaBuilder.construct(ProductRow.class,
+                root.get("id"),
+                root.get("version"),
+                root.get("title"),
+                root.get("distribution"),
+                root.get("format"),
+                root.get("currency"),
+                root.get("price"),
+                root.get("releaseDate"),
+                root.get("storeName"),
+                root.get("productGroupTitle"),
+                root.get("productGroupReleaseDate"),
+                tags.get("name"));
+    }
+
+    /**
+     * Streams every product matching the filters, ignoring paging, as one row per product and tag ordered by
+     * product id. The rows are read through a JDBC cursor of {@code fetchSize} rows, so callers must consume
+     * the stream inside a transaction and should {@link #detachAll()} periodically to keep memory flat.
+     */
+    public Stream<Tuple> streamWithTagNames(final ProductFilterDTO filters, final int fetchSize) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<Product> root = query.from(Product.class);
+        final Join<Product, Tag> tags = root.join("tags", JoinType.LEFT);
+
+        query.multiselect(root, tags.get("name"))
+                .where(filterPredicates(criteriaBuilder, query, root, filters).build())
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Counts the products matching the filters, in total and per tag, store name, format, distribution and currency,
+     * ignoring paging and products without a value. Every count is one {@code GROUP BY} branch of a single
+     * {@code UNION ALL} statement, so a facets request is one round trip that returns only the counts. Each branch
+     * still applies the filters itself.
+     *
+     * @return one row per facet value, in no particular order, and one {@link FacetCount.Facet#TOTAL} row.
+     */
+    public List<FacetCount> countFacets(final ProductFilterDTO filters) {
+        final HibernateCriteriaBuilder criteriaBuilder = entityManager.unwrap(Session.class).getCriteriaBuilder();
+
+        final JpaCriteriaQuery<Tuple> facets = criteriaBuilder.unionAll(
+                countGroups(criteriaBuilder, filters, FacetCount.Facet.TAGS,
+                        root -> root.<Product, Tag>join("tags").get("name")),
+                countGroups(criteriaBuilder, filters, FacetCount.Facet.STORE_NAMES,
+                        root -> root.get("storeName")),
+                countGroups(criteriaBuilder, filters, FacetCount.Facet.FORMATS,
+                        root -> root.get("format").as(String.class)),
+                countGroups(criteriaBuilder, filters, FacetCount.Facet.DISTRIBUTIONS,
+                        root -> root.get("distribution")),
+                countGroups(criteriaBuilder, filters, FacetCount.Facet.CURRENCIES,
+                        root -> root.get("currency").as(String.class)),
+                countTotal(criteriaBuilder, filters));
+
+        return entityManager.createQuery(facets)
+                .setHint(HibernateHints.HINT_TIMEOUT, queryTimeoutSeconds())
+                .getResultList()
+                .stream()
+                .map(row -> new FacetCount(FacetCount.Facet.valueOf(row.get(0, String.class)),
+                        row.get(1, String.class),
+                        row.get(2, Long.class)))
+                .toList();
+    }
+
+    private JpaCriteriaQuery<Tuple> countGroups(final HibernateCriteriaBuilder criteriaBuilder,
+                                                final ProductFilterDTO filters,
+                                                final FacetCount.Facet facet,
+                                                final Function<Root<Product>, Expression<String>> valueOf) {
+        final JpaCriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<Product> root = query.from(Product.class);
+        final Expression<String> value = valueOf.apply(root);
+
+        query.multiselect(criteriaBuilder.literal(facet.name()), value, criteriaBuilder.count(root))
+                .where(filterPredicates(criteriaBuilder, query, root, filters).build(), criteriaBuilder.isNotNull(value))
+                .groupBy(value);
+        return query;
+    }
+
+    private JpaCriteriaQuery<Tuple> countTotal(final HibernateCriteriaBuilder criteriaBuilder,
+                                               final ProductFilterDTO filters) {
+        final JpaCriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        final Root<Product> root = query.from(Product.class);
+
+        query.multiselect(criteriaBuilder.literal(FacetCount.Facet.TOTAL.name()),
+                        criteriaBuilder.nullLiteral(String.class),
+                        criteriaBuilder.count(root))
+                .where(filterPredicates(criteriaBuilder, query, root, filters).build());
+        return query;
+    }
+
+    public void detachAll() {
+        entityManager.clear();
+    }
+
+    private ProductPredicateBuilder filterPredicates(final CriteriaBuilder criteriaBuilder,
+                                                     final CommonAbstractCriteria query,
+                                                     final Root<Product> root,
+                                                     final ProductFilterDTO filters) {
+        return new ProductPredicateBuilder(criteriaBuilder, query, root, searchProperties.textMode())
                 .filterByStoreName(filters.storeName())
                 .filterByTitle(filters.title())
                 .filterByGroupTitle(filters.groupTitle())
@@ -51,17 +328,50 @@ public class ProductRepository {
                 .filterByMaxReleaseDate(filters.releaseDateAfter())
                 .filterByMaxGroupReleaseDate(filters.groupReleaseDateAfter())
                 .filterByMinGroupReleaseDate(filters.groupReleaseDateBefore())
-                .filterByTags(filters.tags())
-                .build();
-
-        return entityManager.createQuery(query.where(filterPredicate))
-                .setFirstResult((filters.page() - 1) * filters.size())
-                .setMaxResults(filters.size())
-                .getResultList();
+                .filterByTags(filters.tags(), filters.tagMatch());
     }
 
     public void delete(final Product product) {
         entityManager.remove(product);
         entityManager.flush();
     }
+
+    /**
+     * Sets the given attributes on every product in {@code ids} and increments their version, in one statement
+     * that bypasses the persistence context.
+     *
+     * @return the number of products updated
+     */
+    public int updateAll(final List<Long> ids, final Map<String, Object> values) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaUpdate<Product> update = criteriaBuilder.createCriteriaUpdate(Product.class);
+        final Root<Product> root = update.from(Product.class);
+
+        values.forEach(update::set);
+        final Path<Long> version = root.get("version");
+        update.set(version, criteriaBuilder.sum(version, 1L))
+                .where(root.get("id").in(ids));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Deletes every product in {@code ids} and their tag links, in one statement per table that bypasses the
+     * persistence context.
+     *
+     * @return the number of products deleted
+     */
+    public int deleteAll(final List<Long> ids) {
+        // The join table is not an entity, and the schema generated for tests has no ON DELETE CASCADE.
+        entityManager.createNativeQuery("DELETE FROM product_tags WHERE product_id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaDelete<Product> delete = criteriaBuilder.createCriteriaDelete(Product.class);
+        final Root<Product> root = delete.from(Product.class);
+        delete.where(root.get("id").in(ids));
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
 }
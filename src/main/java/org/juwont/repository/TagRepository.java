@@ -1,18 +1,28 @@
 package org.juwont.repository;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 import org.juwont.entity.Tag;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Repository
+@Timed(value = "store.repository", histogram = true)
 @RequiredArgsConstructor
 public class TagRepository {
 
@@ -25,6 +35,32 @@ public class TagRepository {
         return tag;
     }
 
+    /**
+     * Inserts every tag in a single multi-row statement and assigns their ids. A name that already exists, for
+     * example because a concurrent request created it first, keeps its row: the no-op update waits for that request
+     * to commit and leaves its id in place. Any other error still fails the statement. The ids actually stored
+     * must be read back with {@link #findAllByNamesForShare(Collection)}.
+     */
+    public void createAllSkippingExisting(final List<Tag> tags) {
+        final SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        final IdentifierGenerator generator = (IdentifierGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(Tag.class)
+                .getGenerator();
+        tags.forEach(tag -> tag.setId((Long) generator.generate(session, tag)));
+
+        final String values = IntStream.range(0, tags.size())
+                .mapToObj(i -> "(?%s, ?%s)".formatted(2 * i + 1, 2 * i + 2))
+                .collect(Collectors.joining(", "));
+        final Query insert = entityManager.createNativeQuery(
+                "INSERT INTO tags (id, name) VALUES " + values + " ON DUPLICATE KEY UPDATE id = id");
+        for (int i = 0; i < tags.size(); i++) {
+            insert.setParameter(2 * i + 1, tags.get(i).getId());
+            insert.setParameter(2 * i + 2, tags.get(i).getName());
+        }
+        insert.executeUpdate();
+    }
+
     public Optional<Tag> findByName(String name) {
         final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         final CriteriaQuery<Tag> query = criteriaBuilder.createQuery(Tag.class);
@@ -35,4 +71,37 @@ public class TagRepository {
                 .getResultStream()
                 .findFirst();
     }
+
+    public List<Tag> findAllByNames(final Collection<String> names) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tag> query = criteriaBuilder.createQuery(Tag.class);
+        final Root<Tag> root = query.from(Tag.class);
+
+        return entityManager.createQuery(query.where(root.get("name").in(names)))
+                .getResultList();
+    }
+
+    /**
+     * Same as {@link #findAllByNames(Collection)} as a locking read, which sees the latest committed rows even when
+     * the transaction's REPEATABLE READ snapshot was taken before a concurrent request created them.
+     */
+    public List<Tag> findAllByNamesForShare(final Collection<String> names) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tag> query = criteriaBuilder.createQuery(Tag.class);
+        final Root<Tag> root = query.from(Tag.class);
+
+        return entityManager.createQuery(query.where(root.get("name").in(names)))
+                .setLockMode(LockModeType.PESSIMISTIC_READ)
+                .getResultList();
+    }
+
+    public List<Tag> findAll(final long limit) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tag> query = criteriaBuilder.createQuery(Tag.class);
+        final Root<Tag> root = query.from(Tag.class);
+
+        return entityManager.createQuery(query.select(root))
+                .setMaxResults(Math.toIntExact(limit))
+                .getResultList();
+    }
 }
@@ -1,41 +1,59 @@
 package org.juwont.repository.builder;
 
+import jakarta.persistence.criteria.CommonAbstractCriteria;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.juwont.domain.TagMatchMode;
+import org.juwont.domain.TextMatch;
+import org.juwont.domain.TextSearchMode;
 import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+
+import static org.juwont.repository.function.FullTextFunctionContributor.MATCH_AGAINST;
 
 public class ProductPredicateBuilder {
     private final CriteriaBuilder criteriaBuilder;
+    private final CommonAbstractCriteria query;
     private final Root<Product> root;
+    private final TextSearchMode textSearchMode;
     private final List<Predicate> predicates = new ArrayList<>();
 
-    public ProductPredicateBuilder(final CriteriaBuilder criteriaBuilder, final Root<Product> root) {
+    public ProductPredicateBuilder(final CriteriaBuilder criteriaBuilder,
+                                   final CommonAbstractCriteria query,
+                                   final Root<Product> root,
+                                   final TextSearchMode textSearchMode) {
         this.criteriaBuilder = criteriaBuilder;
+        this.query = query;
         this.root = root;
+        this.textSearchMode = textSearchMode;
     }
 
     public ProductPredicateBuilder filterByStoreName(final String storeName) {
         if (storeName != null) {
-            predicates.add(criteriaBuilder.like(root.get("storeName"), "%" + storeName + "%"));
+            predicates.add(textMatches("storeName", storeName));
         }
         return this;
     }
 
     public ProductPredicateBuilder filterByTitle(final String title) {
         if (title != null) {
-            predicates.add(criteriaBuilder.like(root.get("title"), "%" + title + "%"));
+            predicates.add(textMatches("title", title));
         }
         return this;
     }
 
     public ProductPredicateBuilder filterByGroupTitle(final String groupTitle) {
         if (groupTitle != null) {
-            predicates.add(criteriaBuilder.like(root.get("productGroupTitle"), "%" + groupTitle + "%"));
+            predicates.add(textMatches("productGroupTitle", groupTitle));
         }
         return this;
     }
@@ -68,9 +86,37 @@ public class ProductPredicateBuilder {
         return this;
     }
 
-    public ProductPredicateBuilder filterByTags(final List<String> tags) {
+    /**
+     * Filters through an {@code id IN (subquery)} semi-join on {@code product_tags} rather than joining the
+     * tags into the outer query, so a product matching several tags is still returned once and paging
+     * counts products rather than product and tag pairs.
+     */
+    public ProductPredicateBuilder filterByTags(final List<String> tags, final TagMatchMode tagMatch) {
         if (tags != null) {
-            predicates.add(root.join("tags").get("name").in(tags));
+            final Subquery<Long> taggedProducts = query.subquery(Long.class);
+            final Root<Tag> tag = taggedProducts.from(Tag.class);
+            final Join<Tag, Product> product = tag.join("products");
+
+            taggedProducts.select(product.get("id"))
+                    .where(tag.get("name").in(tags));
+
+            if (tagMatch == TagMatchMode.ALL) {
+                final long requiredTags = tags.stream()
+                        .map(name -> name.toLowerCase(Locale.ROOT))
+                        .distinct()
+                        .count();
+                taggedProducts.groupBy(product.get("id"))
+                        .having(criteriaBuilder.equal(criteriaBuilder.countDistinct(tag.get("id")), requiredTags));
+            }
+
+            predicates.add(root.get("id").in(taggedProducts));
+        }
+        return this;
+    }
+
+    public ProductPredicateBuilder filterByIdAfter(final Long id) {
+        if (id != null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get("id"), id));
         }
         return this;
     }
@@ -78,4 +124,18 @@ public class ProductPredicateBuilder {
     public Predicate build() {
         return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
     }
+
+    private Predicate textMatches(final String attribute, final String text) {
+        if (textSearchMode == TextSearchMode.SUBSTRING) {
+            return criteriaBuilder.like(root.get(attribute), TextMatch.containsPattern(text), TextMatch.LIKE_ESCAPE);
+        }
+
+        // The ngram parser splits the quoted phrase into tokens of ngram_token_size (2) characters and matches
+        // rows holding all of them in sequence. That only approximates the LIKE filter: a one-character term has
+        // no token and matches nothing, and tokens containing a stopword are dropped unless stopwords are off.
+        final String phrase = "\"" + text.replace("\"", " ") + "\"";
+        final Expression<Double> relevance = criteriaBuilder.function(
+                MATCH_AGAINST, Double.class, root.get(attribute), criteriaBuilder.literal(phrase));
+        return criteriaBuilder.greaterThan(relevance, 0d);
+    }
 }
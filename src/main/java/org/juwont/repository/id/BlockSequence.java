@@ -0,0 +1,24 @@
+package org.juwont.repository.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Generates the annotated id with {@link BlockSequenceGenerator}, reserving blocks of ids from the named sequence.
+ */
+@IdGeneratorType(BlockSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface BlockSequence {
+
+    /**
+     * Name of the sequence, or of the table emulating it on databases without sequences such as MySQL.
+     */
+    String name();
+}
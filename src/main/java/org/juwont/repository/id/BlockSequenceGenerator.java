@@ -0,0 +1,68 @@
+package org.juwont.repository.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sequence generator that reserves ids in blocks using the pooled-lo optimizer, so only one in every
+ * {@code store.id.block_size} inserts, {@value #DEFAULT_BLOCK_SIZE} by default, touches the sequence row. Pooled-lo
+ * stores the first id of the next block, which is what the existing sequence tables already hold, so no data
+ * migration is needed.
+ * <p>
+ * Blocks are handed out here rather than by Hibernate's optimizer, which reserves the next block inside a
+ * {@code synchronized} method. On Java 22 a virtual thread blocked on JDBC inside a monitor pins its carrier
+ * thread, so a {@link ReentrantLock} guards the block instead.
+ * <p>
+ * Attached to an id with {@link BlockSequence}. Hibernate still calls {@link #configure} on it, with the sequence
+ * name added here.
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE_SETTING = "store.id.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String sequenceName;
+    private long nextId;
+    private long blockEnd;
+
+    public BlockSequenceGenerator(final BlockSequence config) {
+        this.sequenceName = config.name();
+    }
+
+    @Override
+    public void configure(final Type type, final Properties parameters, final ServiceRegistry serviceRegistry) {
+        final int blockSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(BLOCK_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_BLOCK_SIZE);
+
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, Integer.toString(blockSize));
+        parameters.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(final SharedSessionContractImplementor session, final Object object) {
+        lock.lock();
+        try {
+            if (nextId == blockEnd) {
+                nextId = getDatabaseStructure().buildCallback(session)
+                        .getNextValue()
+                        .makeValue()
+                        .longValue();
+                blockEnd = nextId + getDatabaseStructure().getIncrementSize();
+            }
+            return nextId++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.juwont.repository.projection;
+
+/**
+ * The number of matching products with one value of one facet. {@code value} is the value as stored, and
+ * {@code null} for the single {@link Facet#TOTAL} row.
+ */
+public record FacetCount(Facet facet, String value, long count) {
+
+    public enum Facet {
+        TOTAL,
+        TAGS,
+        STORE_NAMES,
+        FORMATS,
+        DISTRIBUTIONS,
+        CURRENCIES
+    }
+}
@@ -0,0 +1,24 @@
+package org.juwont.repository.projection;
+
+import org.juwont.domain.MediaFormat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+
+/**
+ * One product and one of its tag names, selected as plain values. A product with several tags spans several
+ * consecutive rows; {@code tag} is {@code null} for a product without tags.
+ */
+public record ProductRow(Long id,
+                         Long version,
+                         String title,
+                         String distribution,
+                         MediaFormat format,
+                         Currency currency,
+                         BigDecimal price,
+                         Instant releaseDate,
+                         String storeName,
+                         String productGroupTitle,
+                         Instant productGroupReleaseDate,
+                         String tag) {}
@@ -0,0 +1,205 @@
+package org.juwont.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.juwont.config.IngestionProperties;
+import org.juwont.service.exception.QueryRejectedException;
+import org.juwont.web.dto.BulkCreateResultDTO;
+import org.juwont.web.dto.BulkItemErrorDTO;
+import org.juwont.web.dto.BulkMutationResultDTO;
+import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.juwont.web.dto.UpdateProductDTO;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Runs catalog wide operations as a series of bounded transactions, so a single bad item or a very large
+ * request never rolls back or locks more than one chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductBulkService {
+
+    private final ProductService productService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final IngestionProperties properties;
+
+    /**
+     * Binds and validates every item on its own, so an item that does not fit {@link CreateProductDTO} is reported
+     * against its index and the rest still go ahead. Only a syntax error, after which the position of the next item
+     * is lost, stops the read.
+     */
+    public BulkCreateResultDTO createAll(final Iterator<JsonNode> items) {
+        final List<BulkItemErrorDTO> errors = new ArrayList<>();
+        final List<IndexedRequest> chunk = new ArrayList<>(properties.chunkSize());
+        int created = 0;
+        int index = 0;
+
+        while (true) {
+            final JsonNode item;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                item = items.next();
+            } catch (RuntimeException e) {
+                errors.add(new BulkItemErrorDTO(index, "Item could not be read, remaining items were skipped"));
+                break;
+            }
+
+            final CreateProductDTO request = bind(item, index, errors);
+            if (request != null) {
+                final Set<ConstraintViolation<CreateProductDTO>> violations = validator.validate(request);
+                if (violations.isEmpty()) {
+                    chunk.add(new IndexedRequest(index, request));
+                } else {
+                    final ConstraintViolation<CreateProductDTO> violation = violations.iterator().next();
+                    errors.add(new BulkItemErrorDTO(index, "Error on field (%s) : %s"
+                            .formatted(violation.getPropertyPath(), violation.getMessage())));
+                }
+            }
+
+            if (chunk.size() == properties.chunkSize()) {
+                created += createChunk(chunk, errors);
+                chunk.clear();
+            }
+            index++;
+        }
+
+        if (!chunk.isEmpty()) {
+            created += createChunk(chunk, errors);
+        }
+        errors.sort(Comparator.comparingInt(BulkItemErrorDTO::index));
+        return new BulkCreateResultDTO(created, errors.size(), errors);
+    }
+
+    /**
+     * Applies the update to every product matching the filters, one chunk of ids per transaction so no statement
+     * locks more than a chunk of rows. Paging parameters in the filters are ignored.
+     */
+    public BulkMutationResultDTO updateAll(final ProductFilterDTO filters, final UpdateProductDTO request) {
+        requireFilters(filters);
+        if (request.title() != null || request.tags() != null) {
+            throw new QueryRejectedException("Title and tags cannot be changed in bulk");
+        }
+        if (isEmpty(request)) {
+            throw new QueryRejectedException("Bulk update has nothing to change");
+        }
+
+        return inChunks(afterId -> productService.updateChunk(filters, afterId, properties.chunkSize(), request));
+    }
+
+    /**
+     * Deletes every product matching the filters, one chunk of ids per transaction. Paging parameters in the
+     * filters are ignored.
+     */
+    public BulkMutationResultDTO deleteAll(final ProductFilterDTO filters) {
+        requireFilters(filters);
+        return inChunks(afterId -> productService.deleteChunk(filters, afterId, properties.chunkSize()));
+    }
+
+    private static BulkMutationResultDTO inChunks(final Function<Long, List<Long>> chunk) {
+        int affected = 0;
+        int chunks = 0;
+        Long afterId = null;
+
+        while (true) {
+            final List<Long> ids = chunk.apply(afterId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            affected += ids.size();
+            chunks++;
+            afterId = ids.getLast();
+        }
+        return new BulkMutationResultDTO(affected, chunks);
+    }
+
+    /**
+     * An empty filter would match the whole catalog, which is never what a bulk change by filter means.
+     */
+    private static void requireFilters(final ProductFilterDTO filters) {
+        if ("none".equals(filters.activeFilters())) {
+            throw new QueryRejectedException("Bulk changes need at least one filter");
+        }
+    }
+
+    private static boolean isEmpty(final UpdateProductDTO request) {
+        return request.isPhysical() == null
+                && request.format() == null
+                && request.currency() == null
+                && request.price() == null
+                && request.releaseDate() == null
+                && request.storeName() == null
+                && request.productGroupTitle() == null
+                && request.productGroupReleaseDate() == null;
+    }
+
+    /**
+     * @return the item as a request, or {@code null} once the reason it cannot be one is recorded.
+     */
+    private CreateProductDTO bind(final JsonNode item, final int index, final List<BulkItemErrorDTO> errors) {
+        try {
+            final CreateProductDTO request = objectMapper.treeToValue(item, CreateProductDTO.class);
+            if (request == null) {
+                errors.add(new BulkItemErrorDTO(index, "Item could not be read"));
+            }
+            return request;
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            errors.add(new BulkItemErrorDTO(index, describeBinding(e)));
+            return null;
+        }
+    }
+
+    private int createChunk(final List<IndexedRequest> chunk, final List<BulkItemErrorDTO> errors) {
+        try {
+            return productService.createProducts(chunk.stream()
+                    .map(IndexedRequest::request)
+                    .toList());
+        } catch (RuntimeException e) {
+            // The failed chunk rolled back as a whole, so retry its items one at a time to isolate the bad ones.
+            int created = 0;
+            for (final IndexedRequest item : chunk) {
+                try {
+                    productService.createProduct(item.request());
+                    created++;
+                } catch (RuntimeException itemFailure) {
+                    errors.add(new BulkItemErrorDTO(item.index(), describe(itemFailure)));
+                }
+            }
+            return created;
+        }
+    }
+
+    private static String describeBinding(final Exception e) {
+        if (e instanceof JsonMappingException mapping
+                && !mapping.getPath().isEmpty()
+                && mapping.getPath().getLast().getFieldName() != null) {
+            return "Error on field (%s) : Value could not be read".formatted(mapping.getPath().getLast().getFieldName());
+        }
+        return "Item could not be read";
+    }
+
+    private static String describe(final RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return "Request contains an existing entity";
+        }
+        return e.getMessage();
+    }
+
+    private record IndexedRequest(int index, CreateProductDTO request) {}
+}
@@ -1,7 +1,18 @@
 package org.juwont.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
+import org.juwont.config.ExportProperties;
+import org.juwont.domain.MediaFormat;
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.ProductEventType;
+import org.juwont.domain.ProductVersion;
+import org.juwont.service.cache.ProductCache;
+import org.juwont.service.catalog.ProductCatalog;
+import org.juwont.service.feed.ProductChangeFeed;
 import org.juwont.service.mapper.ProductMapper;
+import org.juwont.web.dto.FacetsDTO;
 import org.juwont.web.dto.ProductDTO;
 import org.juwont.web.dto.ProductFilterDTO;
 import org.juwont.web.dto.UpdateProductDTO;
@@ -9,16 +20,30 @@ import org.juwont.web.dto.CreateProductDTO;
 import org.juwont.entity.Product;
 import org.juwont.entity.Tag;
 import org.juwont.repository.ProductRepository;
+import org.juwont.repository.projection.FacetCount;
 import org.juwont.service.exception.ProductNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Currency;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "store.service", histogram = true)
 @RequiredArgsConstructor
 @Transactional
 public class ProductService {
@@ -30,14 +55,52 @@ public class ProductService {
     private final TagService tagService;
 
     private final ProductMapper productMapper;
+    private final ProductCache productCache;
+    private final ProductCatalog productCatalog;
+    private final ProductChangeFeed productChangeFeed;
+    private final ExportProperties exportProperties;
 
     public ProductDTO createProduct(final CreateProductDTO request) {
-        final String distribution = resolveDistribution(request.isPhysical());
         final List<Tag> tags = resolveRequestTags(request.tags());
 
-        final Product product = Product.builder()
+        final ProductDTO product = productMapper.toDTO(repository.create(buildProduct(request, tags)));
+        productChangeFeed.record(ProductEventType.CREATED, product);
+        productCache.invalidate(null, product);
+        productCatalog.put(product);
+        return product;
+    }
+
+    /**
+     * Creates every product in one transaction, resolving the tags of the whole chunk with a single
+     * lookup and flushing once so Hibernate can send the inserts as JDBC batches.
+     *
+     * @return the number of products created
+     */
+    public int createProducts(final List<CreateProductDTO> requests) {
+        final Map<String, Tag> tagsByName = tagService.getOrCreateTagsByName(requests.stream()
+                .flatMap(request -> request.tags().stream())
+                .toList());
+
+        final List<Product> products = requests.stream()
+                .map(request -> buildProduct(request, request.tags().stream()
+                        .map(tagsByName::get)
+                        .distinct()
+                        .toList()))
+                .toList();
+
+        final List<ProductDTO> created = repository.createAll(products).stream()
+                .map(productMapper::toDTO)
+                .toList();
+        productChangeFeed.recordAll(ProductEventType.CREATED, created);
+        productCache.invalidateAll(List.of(), created);
+        created.forEach(productCatalog::put);
+        return created.size();
+    }
+
+    private static Product buildProduct(final CreateProductDTO request, final List<Tag> tags) {
+        return Product.builder()
                 .title(request.title())
-                .distribution(distribution)
+                .distribution(resolveDistribution(request.isPhysical()))
                 .format(request.format())
                 .currency(Currency.getInstance(request.currency()))
                 .price(new BigDecimal(request.price()))
@@ -47,14 +110,10 @@ public class ProductService {
                 .productGroupReleaseDate(request.productGroupReleaseDate())
                 .tags(tags)
                 .build();
-
-        return productMapper.toDTO(repository.create(product));
     }
 
     private List<Tag> resolveRequestTags(final List<String> tags) {
-        return tags.stream()
-                .map(tagService::getOrCreateTag)
-                .toList();
+        return tagService.getOrCreateTags(tags);
     }
 
     private static String resolveDistribution(final boolean isPhysical) {
@@ -64,6 +123,7 @@ public class ProductService {
     public ProductDTO updateProduct(final Long id, final UpdateProductDTO request) {
         final Product product = repository.findProduct(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
+        final ProductDTO before = productMapper.toDTO(product);
 
         Optional.ofNullable(request.isPhysical())
                 .map(ProductService::resolveDistribution)
@@ -78,23 +138,219 @@ public class ProductService {
         if (request.productGroupTitle() != null) product.setProductGroupTitle(request.productGroupTitle());
         if (request.productGroupReleaseDate() != null)
             product.setProductGroupReleaseDate(request.productGroupReleaseDate());
-        if (request.tags() != null) product.setTags(resolveRequestTags(request.tags()));
+        if (request.tags() != null) {
+            // Edited in place, so only the tags added or removed are written to product_tags.
+            final Set<Tag> tags = new HashSet<>(resolveRequestTags(request.tags()));
+            product.getTags().retainAll(tags);
+            product.getTags().addAll(tags);
+        }
 
-        return productMapper.toDTO(repository.update(product));
+        final ProductDTO after = productMapper.toDTO(repository.update(product));
+        productChangeFeed.record(ProductEventType.UPDATED, after);
+        productCache.invalidate(before, after);
+        productCatalog.put(after);
+        return after;
+    }
+
+    /**
+     * Applies the update to the next chunk of up to {@code chunkSize} products matching the filters with an id
+     * above {@code afterId}, as one {@code UPDATE} statement. Each product is read before and after, to record
+     * its change and refresh the caches.
+     *
+     * @return the ids of the products updated, empty once none are left.
+     */
+    public List<Long> updateChunk(final ProductFilterDTO filters,
+                                  final Long afterId,
+                                  final int chunkSize,
+                                  final UpdateProductDTO request) {
+        final List<Long> ids = repository.findPageIds(chunkFilters(filters, afterId, chunkSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        final List<ProductDTO> before = productMapper.toDTOs(repository.findRowsWithTagNames(ids));
+        repository.updateAll(ids, updatedValues(request));
+        final List<ProductDTO> updated = productMapper.toDTOs(repository.findRowsWithTagNames(ids));
+        productChangeFeed.recordAll(ProductEventType.UPDATED, updated);
+        productCache.invalidateAll(before, updated);
+        updated.forEach(productCatalog::put);
+        return ids;
+    }
+
+    /**
+     * Deletes the next chunk of up to {@code chunkSize} products matching the filters with an id above
+     * {@code afterId}, with one {@code DELETE} statement per table.
+     *
+     * @return the ids of the products deleted, empty once none are left.
+     */
+    public List<Long> deleteChunk(final ProductFilterDTO filters, final Long afterId, final int chunkSize) {
+        final List<Long> ids = repository.findPageIds(chunkFilters(filters, afterId, chunkSize));
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        final List<ProductDTO> before = productMapper.toDTOs(repository.findRowsWithTagNames(ids));
+        repository.deleteAll(ids);
+        productChangeFeed.recordAll(ProductEventType.DELETED, before);
+        productCache.invalidateAll(before, List.of());
+        before.forEach(product -> productCatalog.remove(product.id()));
+        return ids;
+    }
+
+    private static ProductFilterDTO chunkFilters(final ProductFilterDTO filters, final Long afterId, final int chunkSize) {
+        return filters.toBuilder()
+                .cursor(afterId == null ? null : new ProductCursor(afterId).encode())
+                .page(1)
+                .size(chunkSize)
+                .build();
+    }
+
+    /**
+     * @return the attributes to set for a bulk update, converted the same way {@link #updateProduct} does.
+     */
+    private static Map<String, Object> updatedValues(final UpdateProductDTO request) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        if (request.isPhysical() != null) values.put("distribution", resolveDistribution(request.isPhysical()));
+        if (request.format() != null) values.put("format", request.format());
+        if (request.currency() != null) values.put("currency", Currency.getInstance(request.currency()));
+        if (request.price() != null) values.put("price", new BigDecimal(request.price()));
+        if (request.releaseDate() != null) values.put("releaseDate", request.releaseDate());
+        if (request.storeName() != null) values.put("storeName", request.storeName());
+        if (request.productGroupTitle() != null) values.put("productGroupTitle", request.productGroupTitle());
+        if (request.productGroupReleaseDate() != null)
+            values.put("productGroupReleaseDate", request.productGroupReleaseDate());
+        return values;
     }
 
+    @Transactional(readOnly = true)
+    public ProductDTO findById(final Long id) {
+        return productCache.findById(id).orElseGet(() -> {
+            final ProductDTO product = repository.findProduct(id)
+                    .map(productMapper::toDTO)
+                    .orElseThrow(() -> new ProductNotFoundException(id));
+            productCache.put(product);
+            return product;
+        });
+    }
+
+    /**
+     * @return the ETag of the product, read from the cache or from its version column without loading the row.
+     */
+    @Transactional(readOnly = true)
+    public String findETag(final Long id) {
+        return productCache.findById(id)
+                .map(ProductVersion::of)
+                .or(() -> repository.findVersion(id).map(version -> new ProductVersion(id, version)))
+                .map(ProductVersion::eTag)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+
+    /**
+     * @return the ETag of the page {@link #findByFilters} would return, read from the catalog, the cache or from
+     * the ids and versions of the page without loading the products or their tags.
+     */
+    @Transactional(readOnly = true)
+    public String findPageETag(final ProductFilterDTO filters) {
+        final List<ProductVersion> versions = productCatalog.findPage(filters)
+                .or(() -> productCache.findPage(filters))
+                .map(products -> products.stream().map(ProductVersion::of).toList())
+                .orElseGet(() -> repository.findPageVersions(filters));
+        return ProductVersion.eTag(versions);
+    }
+
+    /**
+     * Answers from the in-memory catalog when it is enabled and loaded. Otherwise reads the page as projections
+     * rather than entities, in a read-only transaction, so Hibernate neither keeps snapshots for dirty checking
+     * nor flushes.
+     */
+    @Transactional(readOnly = true)
     public List<ProductDTO> findByFilters(final ProductFilterDTO filters) {
-        final List<Product> resultList = repository.filter(filters);
+        return productCatalog.findPage(filters).or(() -> productCache.findPage(filters)).orElseGet(() -> {
+            final List<ProductDTO> products = productMapper.toDTOs(repository.filter(filters));
+            productCache.putPage(filters, products);
+            return products;
+        });
+    }
 
-        return resultList.stream()
-                .map(productMapper::toDTO)
-                .toList();
+    /**
+     * Hands every product matching the filters to {@code sink} in batches. Each batch is detached from the
+     * persistence context once written, so memory stays flat however many products match.
+     */
+    @Transactional(readOnly = true)
+    public void exportByFilters(final ProductFilterDTO filters, final Consumer<List<ProductDTO>> sink) {
+        final List<ProductDTO> batch = new ArrayList<>(exportProperties.batchSize());
+
+        try (Stream<Tuple> rows = repository.streamWithTagNames(filters, exportProperties.fetchSize())) {
+            final Iterator<Tuple> iterator = rows.iterator();
+            Product product = null;
+            final Set<String> tags = new LinkedHashSet<>();
+
+            while (iterator.hasNext()) {
+                final Tuple row = iterator.next();
+                final Product rowProduct = row.get(0, Product.class);
+
+                if (product != null && !product.getId().equals(rowProduct.getId())) {
+                    batch.add(productMapper.toDTO(product, List.copyOf(tags)));
+                    tags.clear();
+                    if (batch.size() == exportProperties.batchSize()) {
+                        sink.accept(List.copyOf(batch));
+                        batch.clear();
+                        repository.detachAll();
+                    }
+                }
+
+                product = rowProduct;
+                Optional.ofNullable(row.get(1, String.class)).ifPresent(tags::add);
+            }
+
+            if (product != null) {
+                batch.add(productMapper.toDTO(product, List.copyOf(tags)));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    /**
+     * Counts the products matching the filters per tag, store name, format, distribution and currency in a single
+     * statement, so only the counts are read rather than every matching product. Each facet is ordered by count,
+     * highest first.
+     */
+    @Transactional(readOnly = true)
+    public FacetsDTO findFacets(final ProductFilterDTO filters) {
+        final Map<FacetCount.Facet, List<FacetCount>> facets = repository.countFacets(filters).stream()
+                .collect(Collectors.groupingBy(FacetCount::facet));
+
+        return FacetsDTO.builder()
+                .total(facets.get(FacetCount.Facet.TOTAL).getFirst().count())
+                .tags(counts(facets, FacetCount.Facet.TAGS, Function.identity()))
+                .storeNames(counts(facets, FacetCount.Facet.STORE_NAMES, Function.identity()))
+                .formats(counts(facets, FacetCount.Facet.FORMATS, MediaFormat::valueOf))
+                .distributions(counts(facets, FacetCount.Facet.DISTRIBUTIONS, Function.identity()))
+                .currencies(counts(facets, FacetCount.Facet.CURRENCIES, Function.identity()))
+                .build();
+    }
+
+    private static <K> Map<K, Long> counts(final Map<FacetCount.Facet, List<FacetCount>> facets,
+                                           final FacetCount.Facet facet,
+                                           final Function<String, K> key) {
+        final Map<K, Long> counts = new LinkedHashMap<>();
+        facets.getOrDefault(facet, List.of()).stream()
+                .sorted(Comparator.comparingLong(FacetCount::count).reversed().thenComparing(FacetCount::value))
+                .forEach(row -> counts.put(key.apply(row.value()), row.count()));
+        return counts;
     }
 
     public void deleteById(final Long id) {
         final Product product = repository.findProduct(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
+        final ProductDTO before = productMapper.toDTO(product);
 
         repository.delete(product);
+        productChangeFeed.record(ProductEventType.DELETED, before);
+        productCache.invalidate(before, null);
+        productCatalog.remove(id);
     }
 }
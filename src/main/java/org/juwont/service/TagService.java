@@ -3,28 +3,130 @@ package org.juwont.service;
 import lombok.RequiredArgsConstructor;
 import org.juwont.entity.Tag;
 import org.juwont.repository.TagRepository;
+import org.juwont.service.cache.TagCache;
+import org.juwont.service.exception.InvalidTagException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class TagService {
     private final TagRepository repository;
+    private final TagCache tagCache;
 
-    public Tag createTag(final String name) {
-        Tag tag = new Tag(name);
-        repository.create(tag);
-        return tag;
+    @Transactional
+    public Tag getOrCreateTag(final String name) {
+        return getOrCreateTags(List.of(name)).getFirst();
     }
 
+    /**
+     * Resolves every name to a tag in request order, dropping duplicate names. Cached names cost nothing,
+     * the rest are looked up with one {@code SELECT ... IN} and any still missing are created with one
+     * multi-row insert.
+     */
     @Transactional
-    public Tag getOrCreateTag(final String name) {
-        return findByName(name).orElseGet(() -> createTag(name));
+    public List<Tag> getOrCreateTags(final Collection<String> names) {
+        return getOrCreateTagsByName(names).values().stream()
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Same as {@link #getOrCreateTags(Collection)}, keyed by the requested name so callers resolving tags
+     * for many products at once can pick each product's tags out of a single lookup.
+     */
+    @Transactional
+    public Map<String, Tag> getOrCreateTagsByName(final Collection<String> names) {
+        final Set<String> distinctNames = new LinkedHashSet<>(names);
+        final List<Tag> tags = new ArrayList<>();
+        final List<String> uncachedNames = new ArrayList<>();
+
+        for (final String name : distinctNames) {
+            tagCache.find(name).ifPresentOrElse(tags::add, () -> uncachedNames.add(name));
+        }
+
+        if (!uncachedNames.isEmpty()) {
+            final List<Tag> existingTags = repository.findAllByNames(uncachedNames);
+            existingTags.forEach(tagCache::put);
+            tags.addAll(existingTags);
+
+            final List<String> missingNames = uncachedNames.stream()
+                    .filter(name -> findByName(tags, name).isEmpty())
+                    .toList();
+            if (!missingNames.isEmpty()) {
+                tags.addAll(createTags(distinctIgnoringCase(missingNames)));
+            }
+        }
+
+        final Map<String, Tag> tagsByName = new LinkedHashMap<>();
+        distinctNames.forEach(name -> tagsByName.put(name, findByName(tags, name).orElseThrow()));
+        return tagsByName;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUpCache() {
+        tagCache.putAll(repository.findAll(tagCache.maximumSize()));
+    }
+
+    private List<Tag> createTags(final List<String> names) {
+        names.forEach(TagService::requireValidName);
+        names.forEach(tagCache::evict);
+
+        repository.createAllSkippingExisting(names.stream()
+                .map(Tag::new)
+                .toList());
+        // Names a concurrent request inserted first keep its id, so read back what was stored rather than the
+        // ids generated here.
+        final List<Tag> createdTags = repository.findAllByNamesForShare(names);
+
+        createdTags.forEach(tagCache::put);
+        return createdTags;
+    }
+
+    /**
+     * Checked up front, so an overlong name fails the request rather than being truncated by the database.
+     */
+    private static void requireValidName(final String name) {
+        if (name.isBlank() || name.length() > Tag.MAX_NAME_LENGTH) {
+            throw new InvalidTagException("Tag names must be between 1 and %s characters".formatted(Tag.MAX_NAME_LENGTH));
+        }
+    }
+
+    /**
+     * Drops names that only differ in case from an earlier one. MySQL compares tag names ignoring case, so they
+     * all resolve to the tag created for the first.
+     */
+    private static List<String> distinctIgnoringCase(final List<String> names) {
+        final Set<String> seen = new HashSet<>();
+        return names.stream()
+                .filter(name -> seen.add(name.toLowerCase(Locale.ROOT)))
+                .toList();
     }
 
-    private Optional<Tag> findByName(final String name) {
-        return repository.findByName(name);
+    /**
+     * Prefers an exact match but falls back to a case-insensitive one, because MySQL compares tag names
+     * with a case-insensitive collation and may return "Hip Hop" when asked for "hip hop".
+     */
+    private static Optional<Tag> findByName(final List<Tag> tags, final String name) {
+        return tags.stream()
+                .filter(tag -> tag.getName().equals(name))
+                .findFirst()
+                .or(() -> tags.stream()
+                        .filter(tag -> tag.getName().equalsIgnoreCase(name))
+                        .findFirst());
     }
 }
@@ -0,0 +1,111 @@
+package org.juwont.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.juwont.config.ProductCacheProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read-through caches for single products and filter result pages. Entries are only added once the reading
+ * transaction commits. A write evicts its product and only the pages whose filter matched the product before
+ * or after the write, since no other page can contain it or gain it.
+ */
+@Component
+public class ProductCache {
+
+    private final boolean enabled;
+    private final TextSearchMode textMode;
+    private final Cache<Long, ProductDTO> productsById;
+    private final Cache<ProductFilterDTO, List<ProductDTO>> pagesByFilter;
+
+    public ProductCache(final ProductCacheProperties properties,
+                        final SearchProperties searchProperties,
+                        final MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.textMode = searchProperties.textMode();
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+        this.pagesByFilter = Caffeine.newBuilder()
+                .maximumSize(properties.maximumPages())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, pagesByFilter, "product-pages");
+    }
+
+    public Optional<ProductDTO> findById(final Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(productsById.getIfPresent(id));
+    }
+
+    public void put(final ProductDTO product) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> productsById.put(product.id(), product));
+    }
+
+    public Optional<List<ProductDTO>> findPage(final ProductFilterDTO filters) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pagesByFilter.getIfPresent(filters.normalised()));
+    }
+
+    public void putPage(final ProductFilterDTO filters, final List<ProductDTO> products) {
+        if (!enabled) {
+            return;
+        }
+        final ProductFilterDTO key = filters.normalised();
+        AfterCommit.run(() -> pagesByFilter.put(key, products));
+    }
+
+    /**
+     * @param before the product as it was before the write, or {@code null} when it was created.
+     * @param after  the product as it is after the write, or {@code null} when it was deleted.
+     */
+    public void invalidate(final ProductDTO before, final ProductDTO after) {
+        invalidateAll(before == null ? List.of() : List.of(before), after == null ? List.of() : List.of(after));
+    }
+
+    /**
+     * Invalidates a chunk of writes with a single sweep over the cached pages, rather than one per product.
+     *
+     * @param before the products as they were before the writes, without those that were created.
+     * @param after  the products as they are after the writes, without those that were deleted.
+     */
+    public void invalidateAll(final Collection<ProductDTO> before, final Collection<ProductDTO> after) {
+        final List<ProductDTO> changed = Stream.concat(before.stream(), after.stream()).toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+        // Evict straight away so this instance stops serving the old state, and again after commit in case a
+        // concurrent read cached it in between.
+        evict(changed);
+        AfterCommit.run(() -> evict(changed));
+    }
+
+    private void evict(final List<ProductDTO> changed) {
+        productsById.invalidateAll(changed.stream().map(ProductDTO::id).distinct().toList());
+        pagesByFilter.asMap().keySet().removeIf(filters ->
+                changed.stream().anyMatch(product -> ProductFilterMatcher.matches(filters, product, textMode)));
+    }
+}
@@ -0,0 +1,64 @@
+package org.juwont.service.cache;
+
+import org.juwont.domain.TagMatchMode;
+import org.juwont.domain.TextMatch;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+
+import java.time.Instant;
+
+/**
+ * Evaluates a {@link ProductFilterDTO} against a single product in memory, mirroring the predicates built by
+ * {@link org.juwont.repository.builder.ProductPredicateBuilder}, to decide which cached pages a write affects. A text
+ * filter is compared with {@link TextMatch} where that gives the database's answer. Anywhere else, in
+ * {@code FULLTEXT} mode or with accented text, it counts as a match, so a page is evicted whenever the product
+ * could be on it.
+ */
+public final class ProductFilterMatcher {
+
+    private ProductFilterMatcher() {
+    }
+
+    public static boolean matches(final ProductFilterDTO filters, final ProductDTO product, final TextSearchMode textMode) {
+        if (product == null) {
+            return false;
+        }
+
+        return mayContain(product.storeName(), filters.storeName(), textMode)
+                && mayContain(product.title(), filters.title(), textMode)
+                && mayContain(product.productGroupTitle(), filters.groupTitle(), textMode)
+                && isOnOrAfter(product.releaseDate(), filters.releaseDateBefore())
+                && isOnOrBefore(product.releaseDate(), filters.releaseDateAfter())
+                && isOnOrBefore(product.productGroupReleaseDate(), filters.groupReleaseDateAfter())
+                && isOnOrAfter(product.productGroupReleaseDate(), filters.groupReleaseDateBefore())
+                && hasTags(product, filters);
+    }
+
+    private static boolean mayContain(final String value, final String filter, final TextSearchMode textMode) {
+        if (filter == null || value == null) {
+            return TextMatch.contains(value, filter);
+        }
+        return !TextMatch.isExact(textMode, value, filter) || TextMatch.contains(value, filter);
+    }
+
+    private static boolean isOnOrAfter(final Instant value, final Instant bound) {
+        return bound == null || (value != null && !value.isBefore(bound));
+    }
+
+    private static boolean isOnOrBefore(final Instant value, final Instant bound) {
+        return bound == null || (value != null && !value.isAfter(bound));
+    }
+
+    private static boolean hasTags(final ProductDTO product, final ProductFilterDTO filters) {
+        if (filters.tags() == null) {
+            return true;
+        }
+        if (filters.tagMatch() == TagMatchMode.ALL) {
+            return filters.tags().stream()
+                    .allMatch(filter -> product.tags().stream().anyMatch(filter::equalsIgnoreCase));
+        }
+        return product.tags().stream()
+                .anyMatch(tag -> filters.tags().stream().anyMatch(tag::equalsIgnoreCase));
+    }
+}
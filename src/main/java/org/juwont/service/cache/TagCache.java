@@ -0,0 +1,56 @@
+package org.juwont.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.juwont.config.TagCacheProperties;
+import org.juwont.entity.Tag;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Maps tag names to their ids. Tags are never renamed or deleted, so a cached id stays valid and can be
+ * attached to a product as a detached {@link Tag} without a database round trip.
+ */
+@Component
+public class TagCache {
+
+    private static final String CACHE_NAME = "tags";
+
+    private final Cache<String, Long> idsByName;
+    private final long maximumSize;
+
+    public TagCache(final TagCacheProperties properties, final MeterRegistry meterRegistry) {
+        this.maximumSize = properties.maximumSize();
+        this.idsByName = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByName, CACHE_NAME);
+    }
+
+    public Optional<Tag> find(final String name) {
+        return Optional.ofNullable(idsByName.getIfPresent(name))
+                .map(id -> new Tag(id, name));
+    }
+
+    public void put(final Tag tag) {
+        AfterCommit.run(() -> idsByName.put(tag.getName(), tag.getId()));
+    }
+
+    public void putAll(final Collection<Tag> tags) {
+        tags.forEach(tag -> idsByName.put(tag.getName(), tag.getId()));
+    }
+
+    public void evict(final String name) {
+        idsByName.invalidate(name);
+    }
+
+    public long maximumSize() {
+        return maximumSize;
+    }
+}
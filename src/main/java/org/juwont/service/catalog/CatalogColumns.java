@@ -0,0 +1,343 @@
+package org.juwont.service.catalog;
+
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.TagMatchMode;
+import org.juwont.domain.TextMatch;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Column per filtered field, indexed by a position that follows product id order, so a page is read by walking
+ * positions from the cursor onwards. Dates are held as epoch nanoseconds in primitive arrays, text lower-cased,
+ * and every tag as a bitmap of the positions carrying it. Removed products keep their position and are dropped
+ * from the live bitmap. New products with an id below the highest one held are kept aside in id order and merged
+ * into every page, until the next full load places them. Not thread safe: {@link ProductCatalog} guards it with a
+ * read-write lock.
+ */
+final class CatalogColumns {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private long[] ids;
+    private long[] releaseDates;
+    private long[] groupReleaseDates;
+    private String[] storeNames;
+    private String[] titles;
+    private String[] groupTitles;
+    private ProductDTO[] products;
+    private final Map<String, RoaringBitmap> tags = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    // Products placed out of id order. A removed product is kept as a null value, like a dead position above.
+    private final NavigableMap<Long, ProductDTO> outOfOrder = new TreeMap<>();
+    private final int maxOutOfOrder;
+
+    CatalogColumns(final int maxOutOfOrder) {
+        this.maxOutOfOrder = maxOutOfOrder;
+        ids = new long[INITIAL_CAPACITY];
+        releaseDates = new long[INITIAL_CAPACITY];
+        groupReleaseDates = new long[INITIAL_CAPACITY];
+        storeNames = new String[INITIAL_CAPACITY];
+        titles = new String[INITIAL_CAPACITY];
+        groupTitles = new String[INITIAL_CAPACITY];
+        products = new ProductDTO[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return live.getCardinality() + (int) outOfOrder.values().stream().filter(Objects::nonNull).count();
+    }
+
+    /**
+     * Replaces the product in place, appends it when its id is above every id held, and otherwise keeps it aside
+     * in id order. Changes of concurrent transactions can arrive out of commit order, so a product older than the
+     * version held is ignored, and so is a removed one, since ids are never reused.
+     *
+     * @return false when a new product falls below the highest id held and {@code maxOutOfOrder} products are
+     * already kept aside. The caller has to reload.
+     */
+    boolean upsert(final ProductDTO product) {
+        final int position = Arrays.binarySearch(ids, 0, size, product.id());
+        if (position >= 0) {
+            if (live.contains(position) && !isOlder(product, products[position])) {
+                untag(position);
+                set(position, product);
+            }
+            return true;
+        }
+        if (size == 0 || product.id() > ids[size - 1]) {
+            if (size == ids.length) {
+                grow();
+            }
+            set(size++, product);
+            return true;
+        }
+
+        if (outOfOrder.containsKey(product.id())) {
+            final ProductDTO held = outOfOrder.get(product.id());
+            if (held != null && !isOlder(product, held)) {
+                outOfOrder.put(product.id(), product);
+            }
+            return true;
+        }
+        if (outOfOrder.size() >= maxOutOfOrder) {
+            return false;
+        }
+        outOfOrder.put(product.id(), product);
+        return true;
+    }
+
+    void remove(final Long id) {
+        final int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0 && live.contains(position)) {
+            untag(position);
+            live.remove(position);
+            products[position] = null;
+        } else if (outOfOrder.containsKey(id)) {
+            outOfOrder.put(id, null);
+        }
+    }
+
+    private static boolean isOlder(final ProductDTO product, final ProductDTO held) {
+        return product.version() != null && held.version() != null && product.version() < held.version();
+    }
+
+    /**
+     * Evaluates the filters over the columns, following {@link org.juwont.repository.builder.ProductPredicateBuilder}
+     * in {@code SUBSTRING} mode, with text compared by the {@link TextMatch} rule.
+     *
+     * @return empty when a text filter, or a value it has to be compared with, is not printable ASCII. The database
+     * compares those ignoring accents, so only it can answer.
+     */
+    Optional<List<ProductDTO>> page(final ProductFilterDTO filters) {
+        if (!Stream.of(filters.storeName(), filters.title(), filters.groupTitle()).allMatch(TextMatch::isPrintableAscii)) {
+            return Optional.empty();
+        }
+        final Query query = new Query(filters);
+        final Long after = filters.cursor() == null ? null : ProductCursor.decode(filters.cursor()).lastId();
+
+        final PeekableIntIterator positions = candidates(filters).getIntIterator();
+        final Iterator<ProductDTO> asides = (after == null ? outOfOrder : outOfOrder.tailMap(after, false))
+                .values().stream()
+                .filter(product -> product != null && query.matches(product))
+                .iterator();
+        int skip = 0;
+        if (after != null) {
+            positions.advanceIfNeeded(firstPositionAfter(after));
+        } else {
+            skip = (filters.page() - 1) * filters.size();
+        }
+
+        final List<ProductDTO> page = new ArrayList<>(filters.size());
+        ProductDTO column = nextMatching(positions, query);
+        ProductDTO aside = asides.hasNext() ? asides.next() : null;
+        while ((column != null || aside != null) && page.size() < filters.size() && !query.undecided) {
+            final ProductDTO product;
+            if (aside == null || (column != null && column.id() < aside.id())) {
+                product = column;
+                column = nextMatching(positions, query);
+            } else {
+                product = aside;
+                aside = asides.hasNext() ? asides.next() : null;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            page.add(product);
+        }
+        return query.undecided ? Optional.empty() : Optional.of(page);
+    }
+
+    private ProductDTO nextMatching(final PeekableIntIterator positions, final Query query) {
+        while (positions.hasNext() && !query.undecided) {
+            final int position = positions.next();
+            if (query.matches(position)) {
+                return products[position];
+            }
+        }
+        return null;
+    }
+
+    private RoaringBitmap candidates(final ProductFilterDTO filters) {
+        if (filters.tags() == null) {
+            return live;
+        }
+
+        final List<RoaringBitmap> bitmaps = filters.tags().stream()
+                .map(CatalogColumns::lowerCase)
+                .distinct()
+                .map(tag -> tags.getOrDefault(tag, new RoaringBitmap()))
+                .toList();
+        final RoaringBitmap matching = filters.tagMatch() == TagMatchMode.ALL
+                ? FastAggregation.and(bitmaps.iterator())
+                : FastAggregation.or(bitmaps.iterator());
+        return RoaringBitmap.and(matching, live);
+    }
+
+    private int firstPositionAfter(final Long id) {
+        final int position = Arrays.binarySearch(ids, 0, size, id);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    private void set(final int position, final ProductDTO product) {
+        ids[position] = product.id();
+        releaseDates[position] = epochNanos(product.releaseDate());
+        groupReleaseDates[position] = epochNanos(product.productGroupReleaseDate());
+        storeNames[position] = lowerCase(product.storeName());
+        titles[position] = lowerCase(product.title());
+        groupTitles[position] = lowerCase(product.productGroupTitle());
+        products[position] = product;
+        product.tags().forEach(tag -> tags.computeIfAbsent(lowerCase(tag), name -> new RoaringBitmap()).add(position));
+        live.add(position);
+    }
+
+    private void untag(final int position) {
+        if (products[position] == null) {
+            return;
+        }
+        for (final String tag : products[position].tags()) {
+            final RoaringBitmap bitmap = tags.get(lowerCase(tag));
+            if (bitmap != null) {
+                bitmap.remove(position);
+                if (bitmap.isEmpty()) {
+                    tags.remove(lowerCase(tag));
+                }
+            }
+        }
+    }
+
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        releaseDates = Arrays.copyOf(releaseDates, capacity);
+        groupReleaseDates = Arrays.copyOf(groupReleaseDates, capacity);
+        storeNames = Arrays.copyOf(storeNames, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        groupTitles = Arrays.copyOf(groupTitles, capacity);
+        products = Arrays.copyOf(products, capacity);
+    }
+
+    private static long epochNanos(final Instant instant) {
+        return instant == null ? NO_DATE : instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static String lowerCase(final String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The scalar filters converted once per request to the representation of the columns.
+     */
+    private final class Query {
+        private final String storeName;
+        private final String title;
+        private final String groupTitle;
+        private final long releaseDateFrom;
+        private final long releaseDateTo;
+        private final long groupReleaseDateFrom;
+        private final long groupReleaseDateTo;
+        private final List<String> tags;
+        private final TagMatchMode tagMatch;
+        // Set once a value could not be compared the way the database would, which makes the whole page unknown.
+        private boolean undecided;
+
+        private Query(final ProductFilterDTO filters) {
+            storeName = lowerCase(filters.storeName());
+            title = lowerCase(filters.title());
+            groupTitle = lowerCase(filters.groupTitle());
+            releaseDateFrom = lowerBound(filters.releaseDateBefore());
+            releaseDateTo = upperBound(filters.releaseDateAfter());
+            groupReleaseDateFrom = lowerBound(filters.groupReleaseDateBefore());
+            groupReleaseDateTo = upperBound(filters.groupReleaseDateAfter());
+            tags = filters.tags() == null ? null : filters.tags().stream().map(CatalogColumns::lowerCase).toList();
+            tagMatch = filters.tagMatch();
+        }
+
+        private boolean matches(final int position) {
+            return isBetween(releaseDates[position], releaseDateFrom, releaseDateTo)
+                    && isBetween(groupReleaseDates[position], groupReleaseDateFrom, groupReleaseDateTo)
+                    && contains(storeNames[position], storeName)
+                    && contains(titles[position], title)
+                    && contains(groupTitles[position], groupTitle);
+        }
+
+        /**
+         * Same as {@link #matches(int)} plus the tag filter, for a product kept aside without a position.
+         */
+        private boolean matches(final ProductDTO product) {
+            return isBetween(epochNanos(product.releaseDate()), releaseDateFrom, releaseDateTo)
+                    && isBetween(epochNanos(product.productGroupReleaseDate()), groupReleaseDateFrom, groupReleaseDateTo)
+                    && contains(lowerCase(product.storeName()), storeName)
+                    && contains(lowerCase(product.title()), title)
+                    && contains(lowerCase(product.productGroupTitle()), groupTitle)
+                    && hasTags(product);
+        }
+
+        private boolean hasTags(final ProductDTO product) {
+            if (tags == null) {
+                return true;
+            }
+            final Set<String> productTags = product.tags().stream()
+                    .map(CatalogColumns::lowerCase)
+                    .collect(Collectors.toSet());
+            return tagMatch == TagMatchMode.ALL
+                    ? productTags.containsAll(tags)
+                    : tags.stream().anyMatch(productTags::contains);
+        }
+
+        private static boolean isBetween(final long value, final long from, final long to) {
+            if (from == NO_DATE && to == Long.MAX_VALUE) {
+                return true;
+            }
+            return value != NO_DATE && value >= from && value <= to;
+        }
+
+        /**
+         * {@link TextMatch#contains} over values and a filter already lower-cased. A value holding the filter matches
+         * whatever its characters. One that does not is only known not to match when it is printable ASCII.
+         */
+        private boolean contains(final String value, final String filter) {
+            if (filter == null) {
+                return true;
+            }
+            if (value == null) {
+                return false;
+            }
+            if (value.contains(filter)) {
+                return true;
+            }
+            if (!TextMatch.isPrintableAscii(value)) {
+                undecided = true;
+            }
+            return false;
+        }
+
+        private static long lowerBound(final Instant bound) {
+            return bound == null ? NO_DATE : epochNanos(bound);
+        }
+
+        private static long upperBound(final Instant bound) {
+            return bound == null ? Long.MAX_VALUE : epochNanos(bound);
+        }
+    }
+}
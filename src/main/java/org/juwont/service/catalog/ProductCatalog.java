@@ -0,0 +1,244 @@
+package org.juwont.service.catalog;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.juwont.config.ProductCatalogProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.repository.ProductRepository;
+import org.juwont.repository.projection.ProductRow;
+import org.juwont.service.cache.AfterCommit;
+import org.juwont.service.mapper.ProductMapper;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory columnar copy of the catalog that answers listings without a database round trip. Loaded in full at
+ * startup and on every refresh interval, and kept current in between by the write paths of this instance, which
+ * apply their products once the writing transaction commits. Writes made by other instances show up with the
+ * next full reload. Until the first load completes, or while more new products arrived out of id order than it
+ * holds aside, it answers nothing and callers fall back to the database.
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+
+    private final ProductCatalogProperties properties;
+    private final TextSearchMode textMode;
+    private final ProductRepository repository;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskScheduler taskScheduler;
+    private final Timer reloadTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private CatalogColumns columns;
+    private boolean stale;
+    // Changes committed while a reload runs, replayed onto the reloaded columns in case the load read them too early.
+    private List<Predicate<CatalogColumns>> pendingChanges;
+
+    public ProductCatalog(final ProductCatalogProperties properties,
+                          final SearchProperties searchProperties,
+                          final ProductRepository repository,
+                          final ProductMapper productMapper,
+                          final PlatformTransactionManager transactionManager,
+                          final TaskScheduler taskScheduler,
+                          final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.textMode = searchProperties.textMode();
+        this.repository = repository;
+        this.productMapper = productMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.reloadTimer = Timer.builder("store.catalog.reload")
+                .description("Time taken to load the whole catalog into memory")
+                .register(meterRegistry);
+
+        Gauge.builder("store.catalog.products", this, ProductCatalog::size)
+                .description("Products held by the in-memory catalog")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the page for the filters, or empty when the catalog is disabled or not ready and the database has
+     * to answer. The database also answers text filters in {@code FULLTEXT} mode, whose ngram matching the catalog
+     * does not reproduce, and text the catalog cannot compare the way the database collation does.
+     */
+    public Optional<List<ProductDTO>> findPage(final ProductFilterDTO filters) {
+        if (!properties.enabled() || (textMode != TextSearchMode.SUBSTRING && hasTextFilter(filters))) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (columns == null || stale) {
+                return Optional.empty();
+            }
+            return columns.page(filters);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean hasTextFilter(final ProductFilterDTO filters) {
+        return filters.storeName() != null || filters.title() != null || filters.groupTitle() != null;
+    }
+
+    public void put(final ProductDTO product) {
+        apply(columns -> columns.upsert(product));
+    }
+
+    public void remove(final Long id) {
+        apply(columns -> {
+            columns.remove(id);
+            return true;
+        });
+    }
+
+    private void apply(final Predicate<CatalogColumns> change) {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                if (pendingChanges != null) {
+                    pendingChanges.add(change);
+                }
+                if (columns != null && !change.test(columns)) {
+                    markStale();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${store.catalog.refresh-interval:15m}",
+            initialDelayString = "${store.catalog.refresh-interval:15m}")
+    public void reload() {
+        if (!properties.enabled() || !reloading.compareAndSet(false, true)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean loaded = false;
+        try {
+            final CatalogColumns reloaded = reloadTimer.record(() -> readOnlyTransaction.execute(status -> loadColumns()));
+
+            lock.writeLock().lock();
+            try {
+                boolean ordered = true;
+                for (final Predicate<CatalogColumns> change : pendingChanges) {
+                    ordered &= change.test(reloaded);
+                }
+                columns = reloaded;
+                stale = !ordered;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            log.info("Loaded {} products into the in-memory catalog", reloaded.size());
+        } catch (RuntimeException e) {
+            log.error("Could not load the in-memory catalog, listings fall back to the database", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            reloading.set(false);
+        }
+
+        // A change that did not fit while this reload ran could not schedule another one itself.
+        if (loaded && isStale()) {
+            taskScheduler.schedule(this::reload, Instant.now());
+        }
+    }
+
+    private CatalogColumns loadColumns() {
+        final CatalogColumns loaded = new CatalogColumns(properties.maxOutOfOrder());
+
+        try (Stream<ProductRow> rows = repository.streamAllRows(properties.fetchSize())) {
+            final Iterator<ProductRow> iterator = rows.iterator();
+            final List<ProductRow> productRows = new ArrayList<>();
+
+            while (iterator.hasNext()) {
+                final ProductRow row = iterator.next();
+                if (!productRows.isEmpty() && !productRows.getFirst().id().equals(row.id())) {
+                    loaded.upsert(productMapper.toDTOs(productRows).getFirst());
+                    productRows.clear();
+                }
+                productRows.add(row);
+            }
+
+            if (!productRows.isEmpty()) {
+                loaded.upsert(productMapper.toDTOs(productRows).getFirst());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Serves from the database until a reload has placed the product. Called with the write lock held. A reload
+     * already running replays the change itself and reschedules if it still does not fit.
+     */
+    private void markStale() {
+        stale = true;
+        if (!reloading.get()) {
+            taskScheduler.schedule(this::reload, Instant.now());
+        }
+    }
+
+    private boolean isStale() {
+        lock.readLock().lock();
+        try {
+            return stale;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double size() {
+        lock.readLock().lock();
+        try {
+            return columns == null ? 0 : columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.juwont.service.exception;
+
+public class InvalidTagException extends RuntimeException {
+    public InvalidTagException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.juwont.service.exception;
+
+public class QueryRejectedException extends RuntimeException {
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
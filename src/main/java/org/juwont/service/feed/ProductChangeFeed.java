@@ -0,0 +1,200 @@
+package org.juwont.service.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.juwont.config.ProductEventProperties;
+import org.juwont.domain.ProductEventType;
+import org.juwont.entity.ProductEvent;
+import org.juwont.entity.ProductEventRelay;
+import org.juwont.repository.ProductEventRepository;
+import org.juwont.service.cache.AfterCommit;
+import org.juwont.service.exception.QueryRejectedException;
+import org.juwont.web.dto.ChangesDTO;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductEventDTO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records product changes into the {@code product_events} outbox, inside the transaction making the change, and
+ * serves them to long-polling consumers. A request with nothing new to return is parked until a change commits
+ * on this instance or the next poll finds one written by another instance, and answers empty at the timeout.
+ * <p>
+ * Consumers resume from a sequence number, which {@link #relay} assigns once an event has committed, so numbers
+ * become visible in order and a consumer never moves past an event that only shows up later.
+ */
+@Slf4j
+@Component
+public class ProductChangeFeed {
+
+    private final ProductEventRepository repository;
+    private final ProductEventProperties properties;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskScheduler taskScheduler;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    public ProductChangeFeed(final ProductEventRepository repository,
+                             final ProductEventProperties properties,
+                             final PlatformTransactionManager transactionManager,
+                             final TaskScheduler taskScheduler) {
+        this.repository = repository;
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Appends the change to the outbox. Must run inside the transaction writing the product, so the event
+     * commits or rolls back with it.
+     */
+    public void record(final ProductEventType type, final ProductDTO product) {
+        repository.append(ProductEvent.builder()
+                .productId(product.id())
+                .productVersion(product.version())
+                .type(type)
+                .occurredAt(Instant.now())
+                .build());
+        AfterCommit.run(this::wake);
+    }
+
+    /**
+     * Same as {@link #record}, for every product of a bulk change, with one multi-row insert instead of an insert
+     * per product.
+     */
+    public void recordAll(final ProductEventType type, final List<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        final Instant occurredAt = Instant.now();
+        repository.appendAll(products.stream()
+                .map(product -> ProductEvent.builder()
+                        .productId(product.id())
+                        .productVersion(product.version())
+                        .type(type)
+                        .occurredAt(occurredAt)
+                        .build())
+                .toList());
+        AfterCommit.run(this::wake);
+    }
+
+    /**
+     * Creates the relay row on first start, so relays only ever have to lock it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createRelay() {
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (repository.lockRelay().isEmpty()) {
+                    repository.createRelay();
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Relay row created by another instance", e);
+        }
+    }
+
+    /**
+     * Numbers committed events that have no sequence number yet, in id order, continuing from the last number handed
+     * out. Relays on every instance take turns on the relay row lock, and each only reads events committed before it
+     * took the lock. So a number is only handed out once every lower one is visible, and an event committing late is
+     * numbered after those that committed before it instead of leaving a gap behind them.
+     */
+    public void relay() {
+        boolean more = Boolean.TRUE.equals(readOnlyTransaction.execute(status -> repository.hasUnsequenced()));
+        while (more) {
+            more = Boolean.TRUE.equals(transaction.execute(status -> {
+                final ProductEventRelay relay = repository.lockRelay()
+                        .orElseThrow(() -> new IllegalStateException("Change feed relay row is missing"));
+                final List<ProductEvent> events = repository.findUnsequenced(properties.relayBatchSize());
+                long sequence = relay.getLastSequence();
+                for (final ProductEvent event : events) {
+                    event.setSequence(++sequence);
+                }
+                relay.setLastSequence(sequence);
+                return events.size() == properties.relayBatchSize();
+            }));
+        }
+    }
+
+    public DeferredResult<ChangesDTO> poll(final long after, final int limit) {
+        if (limit < 1 || limit > properties.maxLimit()) {
+            throw new QueryRejectedException("Limit must be between 1 and %s".formatted(properties.maxLimit()));
+        }
+
+        final DeferredResult<ChangesDTO> result = new DeferredResult<>(
+                properties.longPollTimeout().toMillis(), new ChangesDTO(List.of(), after));
+        final Waiter waiter = new Waiter(after, limit, result);
+        // Registered before the first read, so a change committing in between still wakes it.
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+
+        relay();
+        deliver(waiter);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${store.events.poll-interval:1s}")
+    public void deliver() {
+        relay();
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        final long latest = readOnlyTransaction.execute(status -> repository.findLatestSequence()).orElse(0L);
+        for (final Waiter waiter : waiters) {
+            if (waiter.after() < latest) {
+                deliver(waiter);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${store.events.purge-interval:1h}")
+    public void purge() {
+        final Instant cutoff = Instant.now().minus(properties.retention());
+        transaction.executeWithoutResult(status -> repository.deleteOccurredBefore(cutoff));
+    }
+
+    private void wake() {
+        if (!waiters.isEmpty()) {
+            taskScheduler.schedule(this::deliver, Instant.now());
+        }
+    }
+
+    private void deliver(final Waiter waiter) {
+        final List<ProductEventDTO> events = readOnlyTransaction.execute(
+                        status -> repository.findAfter(waiter.after(), waiter.limit()))
+                .stream()
+                .map(ProductChangeFeed::toDTO)
+                .toList();
+        if (!events.isEmpty()) {
+            waiter.result().setResult(new ChangesDTO(events, events.getLast().sequence()));
+        }
+    }
+
+    private static ProductEventDTO toDTO(final ProductEvent event) {
+        return ProductEventDTO.builder()
+                .sequence(event.getSequence())
+                .type(event.getType())
+                .productId(event.getProductId())
+                .version(event.getProductVersion())
+                .occurredAt(event.getOccurredAt())
+                .build();
+    }
+
+    private record Waiter(long after, int limit, DeferredResult<ChangesDTO> result) {}
+}
@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import org.juwont.web.dto.ProductDTO;
 import org.juwont.entity.Product;
 import org.juwont.entity.Tag;
+import org.juwont.repository.projection.ProductRow;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -17,8 +19,13 @@ public class ProductMapper {
                 .map(Tag::getName)
                 .toList();
 
+        return toDTO(product, tags);
+    }
+
+    public ProductDTO toDTO(final Product product, final List<String> tags) {
         return ProductDTO.builder()
                 .id(product.getId())
+                .version(product.getVersion())
                 .title(product.getTitle())
                 .distribution(product.getDistribution())
                 .format(product.getFormat())
@@ -31,4 +38,43 @@ public class ProductMapper {
                 .tags(tags)
                 .build();
     }
+
+    /**
+     * Folds consecutive rows of the same product into one DTO, keeping the order of the rows.
+     */
+    public List<ProductDTO> toDTOs(final List<ProductRow> rows) {
+        final List<ProductDTO> products = new ArrayList<>();
+        int first = 0;
+        while (first < rows.size()) {
+            final ProductRow product = rows.get(first);
+            final List<String> tags = new ArrayList<>();
+            int next = first;
+            while (next < rows.size() && rows.get(next).id().equals(product.id())) {
+                if (rows.get(next).tag() != null) {
+                    tags.add(rows.get(next).tag());
+                }
+                next++;
+            }
+            products.add(toDTO(product, List.copyOf(tags)));
+            first = next;
+        }
+        return products;
+    }
+
+    public ProductDTO toDTO(final ProductRow product, final List<String> tags) {
+        return ProductDTO.builder()
+                .id(product.id())
+                .version(product.version())
+                .title(product.title())
+                .distribution(product.distribution())
+                .format(product.format())
+                .currency(product.currency())
+                .price(product.price())
+                .releaseDate(product.releaseDate())
+                .storeName(product.storeName())
+                .productGroupTitle(product.productGroupTitle())
+                .productGroupReleaseDate(product.productGroupReleaseDate())
+                .tags(tags)
+                .build();
+    }
 }
@@ -0,0 +1,22 @@
+package org.juwont.service.query;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Why a listing is expected to read far more rows than it returns.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExpensiveQuery {
+    UNINDEXED_TEXT("unindexed_text", true,
+            "Text filters match anywhere in a value and cannot use an index. Add tags or a release date range"),
+    DEEP_OFFSET("deep_offset", false,
+            "Deep pages skip every earlier row. Follow the X-Next-Cursor header instead of the page parameter");
+
+    /** Value of the {@code reason} metric tag. */
+    private final String reason;
+    /** Whether a smaller page makes the query cheaper. Skipping rows costs the same whatever the page size. */
+    private final boolean degradable;
+    private final String message;
+}
@@ -0,0 +1,91 @@
+package org.juwont.service.query;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.juwont.config.QueryGuardProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.ExpensiveQueryMode;
+import org.juwont.service.exception.QueryRejectedException;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Checks listing filters before they reach the database. Page sizes outside the configured bounds are rejected.
+ * Combinations the {@link QueryCostEstimator} flags as expensive are rejected, served with a capped page size, or
+ * let through, depending on {@code store.products.query.expensive-mode}. Each rejected or degraded request is
+ * counted by reason. The caller can tell a degraded page by its size being smaller than requested.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductQueryGuard {
+
+    private final QueryGuardProperties properties;
+    private final SearchProperties searchProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @return the filters to run, with the page size capped if the query was degraded.
+     * @throws QueryRejectedException when the request must not run.
+     */
+    public ProductFilterDTO check(final ProductFilterDTO filters) {
+        if (filters.size() < 1 || filters.size() > properties.maxPageSize()) {
+            throw reject("page_size", "Page size must be between 1 and %s".formatted(properties.maxPageSize()));
+        }
+        if (filters.page() < 1) {
+            throw reject("page", "Page must be 1 or more");
+        }
+
+        final Optional<ExpensiveQuery> expensive = QueryCostEstimator.estimate(
+                filters, searchProperties.textMode(), properties.maxOffset());
+        if (expensive.isEmpty() || properties.expensiveMode() == ExpensiveQueryMode.OFF) {
+            return filters;
+        }
+
+        final ExpensiveQuery query = expensive.get();
+        if (properties.expensiveMode() == ExpensiveQueryMode.REJECT || !query.isDegradable()) {
+            throw reject(query.getReason(), query.getMessage());
+        }
+        if (!startsAtRequestedRow(filters)) {
+            return filters;
+        }
+
+        meterRegistry.counter("store.products.query.degraded", "reason", query.getReason()).increment();
+        return filters.toBuilder()
+                .size(Math.min(filters.size(), properties.degradedPageSize()))
+                .build();
+    }
+
+    /**
+     * Facets count every matching product whatever the page, so only the filters are judged and nothing can be
+     * degraded. Expensive filters are rejected in {@code REJECT} mode and otherwise run, bounded by the query
+     * timeout.
+     *
+     * @throws QueryRejectedException when the request must not run.
+     */
+    public void checkFacets(final ProductFilterDTO filters) {
+        if (properties.expensiveMode() != ExpensiveQueryMode.REJECT) {
+            return;
+        }
+
+        final ProductFilterDTO unpaged = filters.toBuilder().page(1).cursor(null).build();
+        QueryCostEstimator.estimate(unpaged, searchProperties.textMode(), properties.maxOffset())
+                .ifPresent(query -> {
+                    throw reject(query.getReason(), query.getMessage());
+                });
+    }
+
+    /**
+     * A smaller page only returns the first rows of the requested one when it starts where the request does.
+     * Past page 1 the offset moves with the size, so those pages run as requested, bounded by the query timeout.
+     */
+    private static boolean startsAtRequestedRow(final ProductFilterDTO filters) {
+        return filters.cursor() != null || filters.page() == 1;
+    }
+
+    private QueryRejectedException reject(final String reason, final String message) {
+        meterRegistry.counter("store.products.query.rejected", "reason", reason).increment();
+        return new QueryRejectedException(message);
+    }
+}
@@ -0,0 +1,40 @@
+package org.juwont.service.query;
+
+import org.juwont.domain.TextSearchMode;
+import org.juwont.web.dto.ProductFilterDTO;
+
+import java.util.Optional;
+
+/**
+ * Flags filter combinations that cannot be answered from an index, judged from the filters alone so the check
+ * costs nothing next to the query. Tags and bounded release date ranges are served by the indexes on
+ * {@code product_tags} and {@code products}, and are taken as selective enough to carry the text filters that
+ * {@code LIKE '%x%'} can only apply row by row.
+ */
+public final class QueryCostEstimator {
+
+    private QueryCostEstimator() {
+    }
+
+    public static Optional<ExpensiveQuery> estimate(final ProductFilterDTO filters,
+                                                    final TextSearchMode textMode,
+                                                    final int maxOffset) {
+        if (filters.cursor() == null && (long) (filters.page() - 1) * filters.size() > maxOffset) {
+            return Optional.of(ExpensiveQuery.DEEP_OFFSET);
+        }
+        if (textMode == TextSearchMode.SUBSTRING && hasTextFilter(filters) && !hasSelectiveFilter(filters)) {
+            return Optional.of(ExpensiveQuery.UNINDEXED_TEXT);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean hasTextFilter(final ProductFilterDTO filters) {
+        return filters.storeName() != null || filters.title() != null || filters.groupTitle() != null;
+    }
+
+    private static boolean hasSelectiveFilter(final ProductFilterDTO filters) {
+        return filters.tags() != null
+                || (filters.releaseDateBefore() != null && filters.releaseDateAfter() != null)
+                || (filters.groupReleaseDateBefore() != null && filters.groupReleaseDateAfter() != null);
+    }
+}
@@ -1,36 +1,90 @@
 package org.juwont.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.ProductVersion;
+import org.juwont.service.ProductBulkService;
+import org.juwont.service.feed.ProductChangeFeed;
+import org.juwont.service.query.ProductQueryGuard;
+import org.juwont.web.converter.ProductJsonWriter;
+import org.juwont.web.dto.BulkCreateResultDTO;
+import org.juwont.web.dto.BulkMutationResultDTO;
+import org.juwont.web.dto.ChangesDTO;
 import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.FacetsDTO;
 import org.juwont.web.dto.ProductDTO;
 import org.juwont.web.dto.ProductFilterDTO;
 import org.juwont.service.ProductService;
 import org.juwont.web.dto.UpdateProductDTO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
 @RestController
 @RequiredArgsConstructor
 public class ProductController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String DEGRADED_PAGE_SIZE_HEADER = "X-Degraded-Page-Size";
+    private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductQueryGuard productQueryGuard;
+    private final ProductChangeFeed productChangeFeed;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/api/product/create")
     public ProductDTO createProduct(@RequestBody @Valid final CreateProductDTO request) {
         return productService.createProduct(request);
     }
 
+    @PostMapping(value = "/api/products/bulk", consumes = {APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public BulkCreateResultDTO createProducts(final HttpServletRequest request) throws IOException {
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class)
+                .readValues(request.getInputStream())) {
+            return productBulkService.createAll(items);
+        }
+    }
+
+    @PatchMapping("/api/products")
+    public BulkMutationResultDTO updateProductsByFilters(@ModelAttribute final ProductFilterDTO filters,
+                                                         @RequestBody @Valid final UpdateProductDTO request) {
+        return productBulkService.updateAll(filters, request);
+    }
+
+    @DeleteMapping("/api/products")
+    public BulkMutationResultDTO deleteProductsByFilters(@ModelAttribute final ProductFilterDTO filters) {
+        return productBulkService.deleteAll(filters);
+    }
+
     @DeleteMapping("/api/product/{id}/delete")
     public ResponseEntity<String> deleteProduct(@PathVariable final Long id) {
         productService.deleteById(id);
@@ -43,31 +97,84 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, updateProductDTO));
     }
 
+    @GetMapping("/api/product/{id}")
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable final Long id, final WebRequest webRequest) {
+        if (isConditional(webRequest) && webRequest.checkNotModified(productService.findETag(id))) {
+            return null;
+        }
+
+        final ProductDTO product = productService.findById(id);
+        return ResponseEntity.ok()
+                .eTag(ProductVersion.of(product).eTag())
+                .body(product);
+    }
+
     @GetMapping("/api/products")
-    public List<ProductDTO> getProductsByFilters(@RequestParam(value = "store_name", required = false) String storeName,
-                                                 @RequestParam(required = false) String title,
-                                                 @RequestParam(name = "group_title", required = false) String groupTitle,
-                                                 @RequestParam(name = "release_date_before", required = false) Instant releaseDateBefore,
-                                                 @RequestParam(name = "release_date_after", required = false) Instant releaseDateAfter,
-                                                 @RequestParam(name = "group_release_date_before", required = false) Instant groupReleaseDateBefore,
-                                                 @RequestParam(name = "group_release_date_after", required = false) Instant groupReleaseDateAfter,
-                                                 @RequestParam(name = "tags", required = false) List<String> tags,
-                                                 @RequestParam(name = "page", required = false) Integer page,
-                                                 @RequestParam(name = "size", required = false) Integer size) {
-
-        final ProductFilterDTO filters = ProductFilterDTO.builder()
-                .storeName(storeName)
-                .title(title)
-                .releaseDateBefore(releaseDateBefore)
-                .releaseDateAfter(releaseDateAfter)
-                .groupTitle(groupTitle)
-                .groupReleaseDateBefore(groupReleaseDateBefore)
-                .groupReleaseDateAfter(groupReleaseDateAfter)
-                .tags(tags)
-                .page(page)
-                .size(size)
-                .build();
-
-        return productService.findByFilters(filters);
+    public ResponseEntity<List<ProductDTO>> getProductsByFilters(@ModelAttribute final ProductFilterDTO requested,
+                                                                 final WebRequest webRequest) {
+        final ProductFilterDTO filters = productQueryGuard.check(requested);
+        if (isConditional(webRequest) && webRequest.checkNotModified(productService.findPageETag(filters))) {
+            return null;
+        }
+
+        final List<ProductDTO> products = productService.findByFilters(filters);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(ProductVersion.eTag(products.stream().map(ProductVersion::of).toList()));
+        if (filters.size() < requested.size()) {
+            response.header(DEGRADED_PAGE_SIZE_HEADER, String.valueOf(filters.size()));
+        }
+        if (products.isEmpty() || products.size() < filters.size()) {
+            return response.body(products);
+        }
+
+        final ProductCursor nextCursor = new ProductCursor(products.getLast().id());
+        return response
+                .header(NEXT_CURSOR_HEADER, nextCursor.encode())
+                .body(products);
+    }
+
+    /**
+     * Only requests carrying {@code If-None-Match} pay for the version probe; everyone else goes straight to
+     * the full read.
+     */
+    private static boolean isConditional(final WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+    }
+
+    @GetMapping("/api/products/facets")
+    public ResponseEntity<FacetsDTO> getFacetsByFilters(@ModelAttribute final ProductFilterDTO filters) {
+        productQueryGuard.checkFacets(filters);
+        return ResponseEntity.ok(productService.findFacets(filters));
+    }
+
+    /**
+     * Long-polls for product changes with a sequence number above {@code after}. Answers as soon as there are
+     * any, or with none once {@code store.events.long-poll-timeout} passes.
+     */
+    @GetMapping("/api/products/changes")
+    public DeferredResult<ChangesDTO> getChanges(@RequestParam(defaultValue = "0") final long after,
+                                                 @RequestParam(defaultValue = "100") final int limit) {
+        return productChangeFeed.poll(after, limit);
+    }
+
+    @GetMapping(value = "/api/products/export", produces = APPLICATION_NDJSON_VALUE)
+    public void exportProductsByFilters(@ModelAttribute final ProductFilterDTO filters,
+                                        final HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(NDJSON_SEPARATOR);
+            productService.exportByFilters(filters, products -> {
+                try {
+                    for (final ProductDTO product : products) {
+                        ProductJsonWriter.write(generator, product);
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 }
@@ -1,9 +1,14 @@
 package org.juwont.web.advice;
 
+import org.juwont.service.exception.InvalidCursorException;
+import org.juwont.service.exception.InvalidTagException;
 import org.juwont.service.exception.ProductNotFoundException;
+import org.juwont.service.exception.QueryRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -13,7 +18,9 @@ import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Objects;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 @ControllerAdvice
 public class ControllerExceptionHandler {
@@ -23,6 +30,31 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(NOT_FOUND).body(new ErrorResponse(e.getMessage()));
     }
 
+    @ExceptionHandler(value = InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(final InvalidCursorException e) {
+        return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+    }
+
+    @ExceptionHandler(value = InvalidTagException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidTagException(final InvalidTagException e) {
+        return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+    }
+
+    @ExceptionHandler(value = QueryRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleQueryRejectedException(final QueryRejectedException e) {
+        return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse(e.getMessage()));
+    }
+
+    @ExceptionHandler(value = QueryTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleQueryTimeoutException(final QueryTimeoutException e) {
+        return ResponseEntity.status(SERVICE_UNAVAILABLE).body(new ErrorResponse("Query took too long, narrow the filters and retry"));
+    }
+
+    @ExceptionHandler(value = ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(final ObjectOptimisticLockingFailureException e) {
+        return ResponseEntity.status(CONFLICT).body(new ErrorResponse("Product was modified by another request, retry the update"));
+    }
+
     @ExceptionHandler(value = DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleResourceNotFoundException(final DataIntegrityViolationException e) {
         return ResponseEntity.status(BAD_REQUEST).body(new ErrorResponse("Request contains an existing entity"));
@@ -0,0 +1,118 @@
+package org.juwont.web.converter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.juwont.web.dto.ProductDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes {@link ProductDTO} field by field to a {@link JsonGenerator}, producing what the application's
+ * {@code ObjectMapper} writes for the record without its reflective bean serializer and the serializer lookups for
+ * {@code Currency}, {@code BigDecimal} and {@code Instant} on every row. Property names are encoded once, and tags
+ * are written straight from the list. A field added to {@link ProductDTO} has to be added here too.
+ */
+public final class ProductJsonWriter {
+
+    private static final int FIELDS = 12;
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString DISTRIBUTION = new SerializedString("distribution");
+    private static final SerializableString FORMAT = new SerializedString("format");
+    private static final SerializableString CURRENCY = new SerializedString("currency");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString RELEASE_DATE = new SerializedString("releaseDate");
+    private static final SerializableString STORE_NAME = new SerializedString("storeName");
+    private static final SerializableString PRODUCT_GROUP_TITLE = new SerializedString("productGroupTitle");
+    private static final SerializableString PRODUCT_GROUP_RELEASE_DATE = new SerializedString("productGroupReleaseDate");
+    private static final SerializableString TAGS = new SerializedString("tags");
+
+    private ProductJsonWriter() {
+    }
+
+    public static void writeAll(final JsonGenerator generator, final List<ProductDTO> products) throws IOException {
+        generator.writeStartArray(products, products.size());
+        for (final ProductDTO product : products) {
+            write(generator, product);
+        }
+        generator.writeEndArray();
+    }
+
+    public static void write(final JsonGenerator generator, final ProductDTO product) throws IOException {
+        generator.writeStartObject(product, FIELDS);
+        writeNumber(generator, ID, product.id());
+        writeNumber(generator, VERSION, product.version());
+        writeString(generator, TITLE, product.title());
+        writeString(generator, DISTRIBUTION, product.distribution());
+        writeString(generator, FORMAT, product.format() == null ? null : product.format().name());
+        writeString(generator, CURRENCY, product.currency() == null ? null : product.currency().getCurrencyCode());
+        writeNumber(generator, PRICE, product.price());
+        writeInstant(generator, RELEASE_DATE, product.releaseDate());
+        writeString(generator, STORE_NAME, product.storeName());
+        writeString(generator, PRODUCT_GROUP_TITLE, product.productGroupTitle());
+        writeInstant(generator, PRODUCT_GROUP_RELEASE_DATE, product.productGroupReleaseDate());
+        writeTags(generator, product.tags());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(final JsonGenerator generator,
+                                    final SerializableString name,
+                                    final Long value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeNumber(final JsonGenerator generator,
+                                    final SerializableString name,
+                                    final BigDecimal value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeString(final JsonGenerator generator,
+                                    final SerializableString name,
+                                    final String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * ISO-8601 in UTC, as {@code Instant#toString()} and the JSR-310 module with timestamps disabled write it.
+     */
+    private static void writeInstant(final JsonGenerator generator,
+                                     final SerializableString name,
+                                     final Instant value) throws IOException {
+        writeString(generator, name, value == null ? null : value.toString());
+    }
+
+    private static void writeTags(final JsonGenerator generator, final List<String> tags) throws IOException {
+        generator.writeFieldName(TAGS);
+        if (tags == null) {
+            generator.writeNull();
+            return;
+        }
+
+        generator.writeStartArray(tags, tags.size());
+        for (final String tag : tags) {
+            generator.writeString(tag);
+        }
+        generator.writeEndArray();
+    }
+}
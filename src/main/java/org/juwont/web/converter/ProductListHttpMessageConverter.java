@@ -0,0 +1,76 @@
+package org.juwont.web.converter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.juwont.web.dto.ProductDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes product listings with {@link ProductJsonWriter}, straight to the response body, in the format of the
+ * factory's generator: JSON, or CBOR with a {@code CBORFactory}. Only takes bodies declared as
+ * {@code List<ProductDTO>}, everything else is left to the regular Jackson converters. Write only.
+ */
+public class ProductListHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<ProductDTO>> {
+
+    private final JsonFactory jsonFactory;
+
+    public ProductListHttpMessageConverter(final JsonFactory jsonFactory, final MediaType... supportedMediaTypes) {
+        super(supportedMediaTypes);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(final Type type, final Class<?> contextClass, final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(final Class<?> clazz, final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(final Type type, final Class<?> clazz, final MediaType mediaType) {
+        final ResolvableType listType = ResolvableType.forType(type == null ? clazz : type).as(List.class);
+        return listType != ResolvableType.NONE
+                && listType.getGeneric(0).toClass() == ProductDTO.class
+                && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(final List<ProductDTO> products,
+                                 final Type type,
+                                 final HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            ProductJsonWriter.writeAll(generator, products);
+        }
+    }
+
+    @Override
+    public List<ProductDTO> read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Product listings are write only", inputMessage);
+    }
+
+    @Override
+    protected List<ProductDTO> readInternal(final Class<? extends List<ProductDTO>> clazz,
+                                            final HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Product listings are write only", inputMessage);
+    }
+}
@@ -0,0 +1,19 @@
+package org.juwont.web.converter;
+
+import org.juwont.domain.TagMatchMode;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Accepts {@code tag_match=any|all} in any case.
+ */
+@Component
+public class TagMatchModeConverter implements Converter<String, TagMatchMode> {
+
+    @Override
+    public TagMatchMode convert(final String source) {
+        return TagMatchMode.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
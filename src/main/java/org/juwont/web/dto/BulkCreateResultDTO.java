@@ -0,0 +1,7 @@
+package org.juwont.web.dto;
+
+import java.util.List;
+
+public record BulkCreateResultDTO(int created,
+                                  int failed,
+                                  List<BulkItemErrorDTO> errors) {}
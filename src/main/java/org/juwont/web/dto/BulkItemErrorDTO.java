@@ -0,0 +1,6 @@
+package org.juwont.web.dto;
+
+/**
+ * @param index zero based position of the failed item in the request body.
+ */
+public record BulkItemErrorDTO(int index, String errorMessage) {}
@@ -0,0 +1,7 @@
+package org.juwont.web.dto;
+
+/**
+ * @param affected number of products updated or deleted.
+ * @param chunks   number of transactions the change was split into.
+ */
+public record BulkMutationResultDTO(int affected, int chunks) {}
@@ -0,0 +1,9 @@
+package org.juwont.web.dto;
+
+import java.util.List;
+
+/**
+ * @param events changes in sequence order.
+ * @param next   sequence number to pass as {@code after} on the next call.
+ */
+public record ChangesDTO(List<ProductEventDTO> events, long next) {}
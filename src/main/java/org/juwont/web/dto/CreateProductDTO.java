@@ -1,7 +1,9 @@
 package org.juwont.web.dto;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import org.juwont.domain.MediaFormat;
 
@@ -23,5 +25,7 @@ public record CreateProductDTO(
         @NotNull(message = "must not be null") String storeName,
         @NotNull(message = "must not be null") String productGroupTitle,
         @NotNull(message = "must not be null") Instant productGroupReleaseDate,
-        @NotNull(message = "must not be null") List<String> tags
+        @NotNull(message = "must not be null")
+        List<@NotBlank(message = "must not be blank")
+             @Size(max = 50, message = "must be at most 50 characters") String> tags
 ) {}
@@ -0,0 +1,14 @@
+package org.juwont.web.dto;
+
+import lombok.Builder;
+import org.juwont.domain.MediaFormat;
+
+import java.util.Map;
+
+@Builder
+public record FacetsDTO(long total,
+                        Map<String, Long> tags,
+                        Map<String, Long> storeNames,
+                        Map<MediaFormat, Long> formats,
+                        Map<String, Long> distributions,
+                        Map<String, Long> currencies) {}
@@ -10,6 +10,7 @@ import java.util.List;
 
 @Builder
 public record ProductDTO(Long id,
+                         Long version,
                          String title,
                          String distribution,
                          MediaFormat format,
@@ -0,0 +1,13 @@
+package org.juwont.web.dto;
+
+import lombok.Builder;
+import org.juwont.domain.ProductEventType;
+
+import java.time.Instant;
+
+@Builder
+public record ProductEventDTO(long sequence,
+                              ProductEventType type,
+                              Long productId,
+                              Long version,
+                              Instant occurredAt) {}
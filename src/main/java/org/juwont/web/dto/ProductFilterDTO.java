@@ -1,25 +1,63 @@
 package org.juwont.web.dto;
 
 import lombok.Builder;
+import org.juwont.domain.TagMatchMode;
+import org.springframework.web.bind.annotation.BindParam;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
-@Builder
+@Builder(toBuilder = true)
 public record ProductFilterDTO (
-    String storeName,
-    String groupTitle,
-    Instant releaseDateBefore,
-    Instant releaseDateAfter,
+    @BindParam("store_name") String storeName,
+    @BindParam("group_title") String groupTitle,
+    @BindParam("release_date_before") Instant releaseDateBefore,
+    @BindParam("release_date_after") Instant releaseDateAfter,
     String title,
-    Instant groupReleaseDateBefore,
-    Instant groupReleaseDateAfter,
+    @BindParam("group_release_date_before") Instant groupReleaseDateBefore,
+    @BindParam("group_release_date_after") Instant groupReleaseDateAfter,
     List<String> tags,
+    @BindParam("tag_match") TagMatchMode tagMatch,
     Integer page,
-    Integer size
+    Integer size,
+    String cursor
 ) {
     public ProductFilterDTO {
         if (page == null) page = 1;
         if (size == null) size = 10;
+        if (tagMatch == null) tagMatch = TagMatchMode.ANY;
+    }
+
+    /**
+     * @return the same filters with tags sorted and de-duplicated, the tag match mode dropped without tags and
+     * the page dropped when a cursor is given, so requests that select the same rows compare equal.
+     */
+    public ProductFilterDTO normalised() {
+        return toBuilder()
+                .tags(Optional.ofNullable(tags)
+                        .map(values -> values.stream().distinct().sorted().toList())
+                        .orElse(null))
+                .tagMatch(tags != null ? tagMatch : TagMatchMode.ANY)
+                .page(cursor != null ? 1 : page)
+                .build();
+    }
+
+    /**
+     * @return the request parameter names of the filters in use joined by {@code +}, or {@code none}. Used as a
+     * metric tag, so paging parameters and filter values are deliberately left out.
+     */
+    public String activeFilters() {
+        final List<String> active = new ArrayList<>();
+        if (storeName != null) active.add("store_name");
+        if (groupTitle != null) active.add("group_title");
+        if (title != null) active.add("title");
+        if (releaseDateBefore != null) active.add("release_date_before");
+        if (releaseDateAfter != null) active.add("release_date_after");
+        if (groupReleaseDateBefore != null) active.add("group_release_date_before");
+        if (groupReleaseDateAfter != null) active.add("group_release_date_after");
+        if (tags != null) active.add(tagMatch == TagMatchMode.ALL ? "tags_all" : "tags");
+        return active.isEmpty() ? "none" : String.join("+", active);
     }
 }
@@ -1,6 +1,8 @@
 package org.juwont.web.dto;
 
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Builder;
 import org.juwont.domain.MediaFormat;
 
@@ -20,5 +22,6 @@ public record UpdateProductDTO(
         String storeName,
         String productGroupTitle,
         Instant productGroupReleaseDate,
-        List<String> tags
+        List<@NotBlank(message = "must not be blank")
+             @Size(max = 50, message = "must be at most 50 characters") String> tags
 ) {}
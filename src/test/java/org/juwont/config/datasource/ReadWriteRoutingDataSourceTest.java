@@ -0,0 +1,71 @@
+package org.juwont.config.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between two in-memory H2 databases and asks each connection which database it belongs to.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String CURRENT_DATABASE = "SELECT DATABASE()";
+
+    @Test
+    void read_only_transactions_go_to_the_replica_and_writes_to_the_primary() {
+        final Routing routing = new Routing(Duration.ZERO);
+
+        assertThat(routing.readOnly().execute(status -> routing.jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)))
+                .isEqualToIgnoringCase("replica");
+        assertThat(routing.readWrite().execute(status -> routing.jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)))
+                .isEqualToIgnoringCase("primary");
+    }
+
+    @Test
+    void reads_stay_on_the_primary_within_the_read_your_writes_window() {
+        final Routing routing = new Routing(Duration.ofMinutes(1));
+
+        assertThat(routing.readOnly().execute(status -> routing.jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)))
+                .isEqualToIgnoringCase("replica");
+
+        routing.readWrite().executeWithoutResult(status -> routing.jdbcTemplate.execute(CURRENT_DATABASE));
+
+        assertThat(routing.readOnly().execute(status -> routing.jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)))
+                .isEqualToIgnoringCase("primary");
+    }
+
+    private static final class Routing {
+
+        private final DataSourceTransactionManager transactionManager;
+        private final JdbcTemplate jdbcTemplate;
+
+        private Routing(final Duration readYourWritesWindow) {
+            final DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                    h2("primary"), h2("replica"), new ReadYourWrites(readYourWritesWindow)));
+            this.transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        private TransactionTemplate readOnly() {
+            final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate;
+        }
+
+        private TransactionTemplate readWrite() {
+            return new TransactionTemplate(transactionManager);
+        }
+
+        private static DataSource h2(final String database) {
+            return new DriverManagerDataSource("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;MODE=MySQL".formatted(database), "sa", "password");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.juwont.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.MediaFormat;
+import org.juwont.service.ProductService;
+import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the application with the replica enabled, on two in-memory H2 databases, and checks that the service's
+ * transactions reach the right one through the JPA transaction manager. Hibernate only creates the schema on the
+ * primary, so {@link #replicate()} copies the primary, schema and rows, onto the replica, the way replication would.
+ */
+@SpringBootTest(properties = {
+        "store.datasource.replica.enabled=true",
+        "store.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "store.datasource.replica.username=sa",
+        "store.datasource.replica.password=password",
+        "store.datasource.replica.read-your-writes-window=0s"})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+        replicate();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Product").executeUpdate();
+            entityManager.createQuery("DELETE FROM ProductEvent").executeUpdate();
+        });
+    }
+
+    @Test
+    void service_transactions_run_on_the_jpa_transaction_manager() {
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+    }
+
+    @Test
+    void creating_a_product_writes_to_the_primary() {
+        final ProductDTO product = productService.createProduct(buildProductDTO("Written"));
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM products WHERE id = ?", Long.class, product.id()))
+                .isEqualTo(1L);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM products WHERE id = ?", Long.class, product.id()))
+                .isZero();
+    }
+
+    @Test
+    void finding_products_reads_from_the_replica() {
+        productService.createProduct(buildProductDTO("Replicated"));
+        replicate();
+        productService.createProduct(buildProductDTO("Not replicated yet"));
+
+        assertThat(productService.findByFilters(ProductFilterDTO.builder().build()))
+                .extracting(ProductDTO::title)
+                .containsExactly("Replicated");
+    }
+
+    private void replicate() {
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT", String.class).forEach(replica::execute);
+    }
+
+    private static CreateProductDTO buildProductDTO(final String title) {
+        return CreateProductDTO.builder()
+                .title(title)
+                .price("15.50")
+                .currency("USD")
+                .format(MediaFormat.MP3)
+                .isPhysical(false)
+                .productGroupTitle("Wu tang records")
+                .storeName("Wu shop")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package org.juwont.repository;
+
+import org.h2.jdbc.JdbcSQLSyntaxErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.repository.metrics.CapturingStatementInspector;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the SQL the text filters render to in {@code FULLTEXT} mode. H2 has no {@code MATCH ... AGAINST}, so the
+ * statements fail to prepare with a syntax error and only their rendering is asserted. How the ngram parser
+ * tokenises the phrase is MySQL behaviour this cannot cover.
+ */
+@SpringBootTest(properties = {
+        "store.search.text-mode=FULLTEXT",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"})
+@Import(CapturingStatementInspector.Configuration.class)
+class ProductFullTextSearchTest {
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void text_filters_render_as_boolean_mode_phrase_searches() {
+        final ProductFilterDTO filters = ProductFilterDTO.builder()
+                .title("Wu \"Tang\"")
+                .storeName("Wu Store")
+                .groupTitle("Records")
+                .build();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> productRepository.filter(filters)))
+                .isInstanceOf(InvalidDataAccessResourceUsageException.class)
+                .hasRootCauseInstanceOf(JdbcSQLSyntaxErrorException.class);
+
+        assertThat(CapturingStatementInspector.STATEMENTS)
+                .anySatisfy(sql -> assertThat(sql)
+                        .containsPattern("match \\(\\w+\\.title\\) against \\('\"Wu  Tang \"' in boolean mode\\)")
+                        .containsPattern("match \\(\\w+\\.store_name\\) against \\('\"Wu Store\"' in boolean mode\\)")
+                        .containsPattern("match \\(\\w+\\.product_group_title\\) against \\('\"Records\"' in boolean mode\\)")
+                        .doesNotContain(" like "));
+    }
+}
@@ -0,0 +1,125 @@
+package org.juwont.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.juwont.domain.MediaFormat;
+import org.juwont.entity.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.juwont.repository.id.BlockSequenceGenerator.DEFAULT_BLOCK_SIZE;
+
+/**
+ * Inserts run in their own committed transactions here, so this class cleans up after itself instead of
+ * relying on a rolled back test transaction. Throughput depends on the machine, so it is recorded in
+ * {@value #REPORT} rather than asserted. The sequence round trips are asserted.
+ */
+@SpringBootTest
+class ProductIdAllocationTest {
+
+    private static final int INSERTS_PER_THREAD = 200;
+    private static final String REPORT = "build/reports/id-allocation/throughput.csv";
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    public static void createReport() throws IOException {
+        Files.createDirectories(Path.of(REPORT).getParent());
+        Files.writeString(Path.of(REPORT), "threads,inserts,millis,inserts_per_second,sequence_calls%n".formatted());
+    }
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.createQuery("DELETE FROM Product").executeUpdate());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8})
+    void concurrent_inserts_share_blocks_of_ids(final int threads) throws Exception {
+        final int inserts = threads * INSERTS_PER_THREAD;
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        statistics.clear();
+
+        final Instant start = Instant.now();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            final List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                final int worker = thread;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                        final Product product = buildProductEntity("Product %s-%s".formatted(worker, i));
+                        ids.add(transactionTemplate.execute(status -> productRepository.create(product).getId()));
+                    }
+                }));
+            }
+            for (final Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+        final Duration elapsed = Duration.between(start, Instant.now());
+
+        final long sequenceCalls = statistics.getPrepareStatementCount() - inserts;
+        Files.writeString(Path.of(REPORT), "%s,%s,%s,%.0f,%s%n".formatted(threads, inserts, elapsed.toMillis(),
+                inserts * 1000.0 / Math.max(1, elapsed.toMillis()), sequenceCalls), StandardOpenOption.APPEND);
+
+        assertThat(ids).hasSize(inserts);
+        assertThat(sequenceCalls).isLessThanOrEqualTo(inserts / DEFAULT_BLOCK_SIZE + threads);
+    }
+
+    private static Product buildProductEntity(final String title) {
+        return Product.builder()
+                .title(title)
+                .price(new BigDecimal("15.50"))
+                .currency(Currency.getInstance("USD"))
+                .format(MediaFormat.MP3)
+                .distribution("digital")
+                .storeName("Wu Store")
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package org.juwont.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.juwont.domain.MediaFormat;
+import org.juwont.domain.ProductCursor;
+import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
+import org.juwont.repository.metrics.CapturingStatementInspector;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * EXPLAINs the SQL behind every combination of the indexed filters and fails when a table is read without an
+ * index condition. Text filters are left out: {@code LIKE '%x%'} cannot use a B-tree index by design.
+ * Values are inlined into the SQL so the captured statements can be explained as they are.
+ * <p>
+ * The plans are H2's. This catches a filter with no index to serve it, or SQL shaped so no index can apply. It is
+ * not a guard on MySQL, whose optimizer weighs indexes differently and may still choose a scan. Checking MySQL plans
+ * needs a MySQL server, for example through Testcontainers, which the test suite does not depend on.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline")
+@Import(CapturingStatementInspector.Configuration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductQueryPlanTest {
+
+    private static final int PRODUCTS = 1000;
+    private static final int TAGS = 20;
+    private static final Instant FIRST_RELEASE = Instant.parse("2020-01-01T00:00:00Z");
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* (PUBLIC\\.[^*]+?) \\*/");
+
+    private static final List<UnaryOperator<ProductFilterDTO.ProductFilterDTOBuilder>> INDEXED_FILTERS = List.of(
+            filters -> filters
+                    .releaseDateBefore(FIRST_RELEASE.plus(Duration.ofDays(100)))
+                    .releaseDateAfter(FIRST_RELEASE.plus(Duration.ofDays(110))),
+            filters -> filters
+                    .groupReleaseDateBefore(FIRST_RELEASE.plus(Duration.ofDays(200)))
+                    .groupReleaseDateAfter(FIRST_RELEASE.plus(Duration.ofDays(210))),
+            filters -> filters.tags(List.of("Tag 3")),
+            filters -> filters.cursor(new ProductCursor((long) PRODUCTS / 2).encode()));
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @BeforeAll
+    public void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            final List<Tag> tags = IntStream.range(0, TAGS)
+                    .mapToObj(tag -> tagRepository.create(new Tag("Tag %s".formatted(tag))))
+                    .toList();
+            productRepository.createAll(IntStream.range(0, PRODUCTS)
+                    .mapToObj(product -> buildProductEntity(product, List.of(
+                            tags.get(product % TAGS),
+                            tags.get((product + 1) % TAGS))))
+                    .toList());
+        });
+        // Give the H2 optimizer real selectivity figures rather than estimates for empty tables.
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    public void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Product").executeUpdate();
+            entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        });
+    }
+
+    /**
+     * Every non-empty combination. An unfiltered page reads the primary key in order and stops at the page
+     * size, so it is the one combination allowed to walk the table.
+     */
+    static Stream<ProductFilterDTO> indexedFilterCombinations() {
+        return IntStream.range(1, 1 << INDEXED_FILTERS.size())
+                .mapToObj(combination -> {
+                    ProductFilterDTO.ProductFilterDTOBuilder filters = ProductFilterDTO.builder();
+                    for (int filter = 0; filter < INDEXED_FILTERS.size(); filter++) {
+                        if ((combination & (1 << filter)) != 0) {
+                            filters = INDEXED_FILTERS.get(filter).apply(filters);
+                        }
+                    }
+                    return filters.build();
+                });
+    }
+
+    @ParameterizedTest
+    @MethodSource("indexedFilterCombinations")
+    void filter_queries_never_scan_a_whole_table(final ProductFilterDTO filters) {
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        transactionTemplate.executeWithoutResult(status -> productRepository.filter(filters));
+
+        assertThat(CapturingStatementInspector.STATEMENTS)
+                .isNotEmpty()
+                .allSatisfy(sql -> {
+                    final String plan = explain(sql);
+                    assertThat(unindexedTableAccesses(plan))
+                            .as("%s filters: %s%n%s", filters.activeFilters(), filters, plan)
+                            .isEmpty();
+                });
+    }
+
+    private String explain(final String sql) {
+        // Limit and offset stay bound parameters even when values are inlined.
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql.replace("?", "1"), String.class);
+    }
+
+    private static List<String> unindexedTableAccesses(final String plan) {
+        final List<String> accesses = new ArrayList<>();
+        final Matcher matcher = TABLE_ACCESS.matcher(plan);
+        while (matcher.find()) {
+            final String access = matcher.group(1);
+            if (access.endsWith(".tableScan") || !access.contains(":")) {
+                accesses.add(access);
+            }
+        }
+        return accesses;
+    }
+
+    private static Product buildProductEntity(final int product, final List<Tag> tags) {
+        return Product.builder()
+                .title("Product %s".formatted(product))
+                .price(new BigDecimal("15.50"))
+                .currency(Currency.getInstance("USD"))
+                .format(MediaFormat.MP3)
+                .distribution("digital")
+                .storeName("Store %s".formatted(product % 10))
+                .productGroupTitle("Group %s".formatted(product % 100))
+                .releaseDate(FIRST_RELEASE.plus(Duration.ofDays(product)))
+                .productGroupReleaseDate(FIRST_RELEASE.plus(Duration.ofDays(product)))
+                .tags(tags)
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package org.juwont.repository.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps every statement Hibernate prepares, for tests that assert on the SQL itself, and still counts them like the
+ * {@link StatementCounter} it replaces. Tests {@code @Import} {@link Configuration} and clear {@link #STATEMENTS}
+ * before the statements they look at.
+ */
+public class CapturingStatementInspector extends StatementCounter {
+
+    public static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(final String sql) {
+        STATEMENTS.add(sql);
+        return super.inspect(sql);
+    }
+
+    @TestConfiguration
+    public static class Configuration {
+
+        @Bean
+        public HibernatePropertiesCustomizer capturingStatementInspector() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CapturingStatementInspector());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.juwont.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.MediaFormat;
+import org.juwont.web.dto.BulkMutationResultDTO;
+import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.juwont.web.dto.UpdateProductDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Not transactional itself, so every chunk commits in its own transaction the way it does behind the API. One product
+ * per chunk makes each bulk change span several of them.
+ */
+@SpringBootTest(properties = "store.ingestion.chunk-size=1")
+class ProductBulkServiceTest {
+
+    @Autowired
+    ProductBulkService productBulkService;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Product").executeUpdate();
+            entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+            entityManager.createQuery("DELETE FROM ProductEvent").executeUpdate();
+        });
+    }
+
+    @Test
+    void updates_every_match_one_chunk_per_transaction() {
+        createProducts("Wu Store", "Wu Tang Clan - 36 Chambers", "Wu Tang Clan - Forever", "Wu Tang Clan - The W");
+        createProducts("Soul", "De La Soul = 3 Foot High");
+
+        final BulkMutationResultDTO result = productBulkService.updateAll(
+                ProductFilterDTO.builder().storeName("Wu Store").build(),
+                UpdateProductDTO.builder().price("9.99").build());
+
+        assertThat(result).isEqualTo(new BulkMutationResultDTO(3, 3));
+        assertThat(prices("Wu Store")).containsExactly(new BigDecimal("9.99"), new BigDecimal("9.99"), new BigDecimal("9.99"));
+        assertThat(prices("Soul")).containsExactly(new BigDecimal("15.50"));
+    }
+
+    @Test
+    void updating_the_filtered_column_moves_every_match() {
+        createProducts("Old", "Wu Tang Clan - 36 Chambers", "Wu Tang Clan - Forever", "Wu Tang Clan - The W");
+
+        final BulkMutationResultDTO result = productBulkService.updateAll(
+                ProductFilterDTO.builder().storeName("Old").build(),
+                UpdateProductDTO.builder().storeName("New").build());
+
+        assertThat(result).isEqualTo(new BulkMutationResultDTO(3, 3));
+        assertThat(prices("Old")).isEmpty();
+        assertThat(prices("New")).hasSize(3);
+    }
+
+    @Test
+    void deletes_every_match_one_chunk_per_transaction() {
+        createProducts("Wu Store", "Wu Tang Clan - 36 Chambers", "Wu Tang Clan - Forever");
+        createProducts("Soul", "De La Soul = 3 Foot High");
+
+        final BulkMutationResultDTO result = productBulkService.deleteAll(
+                ProductFilterDTO.builder().storeName("Wu Store").build());
+
+        assertThat(result).isEqualTo(new BulkMutationResultDTO(2, 2));
+        assertThat(prices("Wu Store")).isEmpty();
+        assertThat(prices("Soul")).hasSize(1);
+    }
+
+    private void createProducts(final String storeName, final String... titles) {
+        for (final String title : titles) {
+            productService.createProduct(buildProductDTO(title, storeName));
+        }
+    }
+
+    /**
+     * Reads the table rather than going through the service, so no cached page can answer.
+     */
+    private List<BigDecimal> prices(final String storeName) {
+        return transaction.execute(status -> entityManager
+                .createQuery("SELECT p.price FROM Product p WHERE p.storeName = :storeName ORDER BY p.id", BigDecimal.class)
+                .setParameter("storeName", storeName)
+                .getResultList());
+    }
+
+    private static CreateProductDTO buildProductDTO(final String title, final String storeName) {
+        return CreateProductDTO.builder()
+                .title(title)
+                .price("15.50")
+                .currency("USD")
+                .format(MediaFormat.MP3)
+                .isPhysical(false)
+                .productGroupTitle("Wu Tang Records")
+                .storeName(storeName)
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .build();
+    }
+}
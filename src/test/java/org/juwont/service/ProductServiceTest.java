@@ -0,0 +1,169 @@
+package org.juwont.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.juwont.domain.MediaFormat;
+import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
+import org.juwont.repository.ProductRepository;
+import org.juwont.repository.TagRepository;
+import org.juwont.repository.metrics.CapturingStatementInspector;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.juwont.web.dto.UpdateProductDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(CapturingStatementInspector.Configuration.class)
+@Transactional
+class ProductServiceTest {
+
+    private static final int CATALOG_SIZE = 30;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager.createQuery("DELETE FROM Product").executeUpdate();
+        entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 25})
+    void filter_runs_a_fixed_number_of_queries_regardless_of_page_size(final int size) {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Tag jazzTag = tagRepository.create(new Tag("Jazz"));
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            productRepository.create(buildProductEntity("Product %s".formatted(i), List.of(hipHopTag, jazzTag)));
+        }
+        entityManager.clear();
+        statistics.clear();
+
+        final List<ProductDTO> products = productService.findByFilters(ProductFilterDTO.builder()
+                .size(size)
+                .build());
+
+        assertThat(products).hasSize(size)
+                .allSatisfy(product -> assertThat(product.tags()).containsExactlyInAnyOrder("Hip Hop", "Jazz"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void filter_reads_projections_without_loading_entities() {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        productRepository.create(buildProductEntity("Product 1", List.of(hipHopTag)));
+        productRepository.create(buildProductEntity("Product 2", List.of()));
+        entityManager.clear();
+        statistics.clear();
+
+        final List<ProductDTO> products = productService.findByFilters(ProductFilterDTO.builder().build());
+
+        assertThat(products).extracting(ProductDTO::tags)
+                .containsExactly(List.of("Hip Hop"), List.of());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void update_sets_only_the_changed_columns() {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Product product = productRepository.create(buildProductEntity("Product 1", List.of(hipHopTag)));
+        entityManager.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        productService.updateProduct(product.getId(), UpdateProductDTO.builder().price("9.99").build());
+
+        assertThat(statements("update products "))
+                .singleElement()
+                .satisfies(sql -> assertThat(sql).contains("price", "version").doesNotContain("title", "store_name"));
+        assertThat(statements("delete from product_tags")).isEmpty();
+        assertThat(statements("insert into product_tags")).isEmpty();
+    }
+
+    @Test
+    void update_writes_only_the_tags_added_and_removed() {
+        final List<Tag> tags = Stream.of("Hip Hop", "Jazz", "Soul")
+                .map(name -> tagRepository.create(new Tag(name)))
+                .toList();
+        final Product product = productRepository.create(buildProductEntity("Product 1", tags.subList(0, 2)));
+        entityManager.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+
+        final ProductDTO updated = productService.updateProduct(product.getId(), UpdateProductDTO.builder()
+                .tags(List.of("Jazz", "Soul"))
+                .build());
+
+        assertThat(updated.tags()).containsExactlyInAnyOrder("Jazz", "Soul");
+        assertThat(statements("delete from product_tags")).hasSize(1);
+        assertThat(statements("insert into product_tags")).hasSize(1);
+    }
+
+    @Test
+    void text_filters_match_like_wildcards_literally() {
+        productRepository.create(buildProductEntity("Wu Tang Clan", List.of()));
+        productRepository.create(buildProductEntity("Wu_Tang 100%", List.of()));
+        entityManager.clear();
+
+        assertThat(productService.findByFilters(ProductFilterDTO.builder().title("Wu_Tang").build()))
+                .extracting(ProductDTO::title)
+                .containsExactly("Wu_Tang 100%");
+        assertThat(productService.findByFilters(ProductFilterDTO.builder().title("0%").build()))
+                .extracting(ProductDTO::title)
+                .containsExactly("Wu_Tang 100%");
+    }
+
+    private static List<String> statements(final String prefix) {
+        return CapturingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith(prefix))
+                .toList();
+    }
+
+    private static Product buildProductEntity(final String title, final List<Tag> tags) {
+        return Product.builder()
+                .title(title)
+                .price(new BigDecimal("15.50"))
+                .currency(Currency.getInstance("USD"))
+                .format(MediaFormat.MP3)
+                .distribution("digital")
+                .storeName("Wu Store")
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(tags)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package org.juwont.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.entity.Tag;
+import org.juwont.repository.TagRepository;
+import org.juwont.service.cache.TagCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Races two transactions creating the same tag. Not transactional itself, so each side commits for real.
+ */
+@SpringBootTest
+class TagServiceConcurrencyTest {
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @SpyBean
+    TagCache tagCache;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @AfterEach
+    public void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Product").executeUpdate();
+            entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        });
+        List.of("Jazz", "Soul").forEach(tagCache::evict);
+    }
+
+    @Test
+    void uses_the_tag_a_concurrent_transaction_committed_first() {
+        final Thread requestThread = Thread.currentThread();
+        final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        final AtomicReference<Tag> concurrentTag = new AtomicReference<>();
+
+        // The request has already looked the names up and found neither. Right before it inserts them, another
+        // transaction creates and commits Jazz.
+        doAnswer(invocation -> {
+            if (Thread.currentThread() == requestThread && concurrentTag.get() == null) {
+                final Thread concurrent = Thread.ofPlatform().start(() -> concurrentTag.set(
+                        transaction.execute(status -> tagService.getOrCreateTag("Jazz"))));
+                concurrent.join();
+            }
+            return invocation.callRealMethod();
+        }).when(tagCache).evict("Jazz");
+
+        final TransactionTemplate request = new TransactionTemplate(transactionManager);
+        request.setIsolationLevel(Isolation.REPEATABLE_READ.value());
+        final List<Tag> tags = request.execute(status -> tagService.getOrCreateTags(List.of("Jazz", "Soul")));
+
+        assertThat(concurrentTag.get()).isNotNull();
+        assertThat(tags).extracting(Tag::getName, Tag::getId)
+                .containsExactly(tuple("Jazz", concurrentTag.get().getId()), tuple("Soul", tags.get(1).getId()));
+        assertThat(new TransactionTemplate(transactionManager).execute(status ->
+                tagRepository.findAllByNames(List.of("Jazz", "Soul"))))
+                .extracting(Tag::getName)
+                .containsExactlyInAnyOrder("Jazz", "Soul");
+    }
+}
@@ -0,0 +1,102 @@
+package org.juwont.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.entity.Tag;
+import org.juwont.repository.TagRepository;
+import org.juwont.service.cache.TagCache;
+import org.juwont.service.exception.InvalidTagException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class TagServiceTest {
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @Autowired
+    TagCache tagCache;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager.createQuery("DELETE FROM Product").executeUpdate();
+        entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tagCache.evict("Hip Hop");
+    }
+
+    @Test
+    void resolves_cached_tags_without_querying_the_database() {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        entityManager.flush();
+        tagCache.putAll(List.of(hipHopTag));
+        statistics.clear();
+
+        final Tag tag = tagService.getOrCreateTag("Hip Hop");
+
+        assertThat(tag.getId()).isEqualTo(hipHopTag.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void resolves_existing_and_new_tags_in_request_order() {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        entityManager.flush();
+
+        final List<Tag> tags = tagService.getOrCreateTags(List.of("Jazz", "Hip Hop", "Jazz", "Soul"));
+
+        assertThat(tags).extracting(Tag::getName).containsExactly("Jazz", "Hip Hop", "Soul");
+        assertThat(tags.get(1).getId()).isEqualTo(hipHopTag.getId());
+        assertThat(tagRepository.findAllByNames(List.of("Jazz", "Soul"))).hasSize(2);
+    }
+
+    @Test
+    void resolves_names_differing_only_in_case_to_one_tag() {
+        final List<Tag> tags = tagService.getOrCreateTags(List.of("Jazz", "jazz", "Soul"));
+
+        assertThat(tags).extracting(Tag::getName).containsExactly("Jazz", "Soul");
+        assertThat(tagRepository.findAllByNames(List.of("Jazz", "jazz"))).hasSize(1);
+    }
+
+    @Test
+    void rejects_names_longer_than_the_column() {
+        assertThatThrownBy(() -> tagService.getOrCreateTag("x".repeat(Tag.MAX_NAME_LENGTH + 1)))
+                .isInstanceOf(InvalidTagException.class);
+    }
+
+    @Test
+    void does_not_cache_tags_created_by_a_transaction_that_has_not_committed() {
+        tagService.getOrCreateTag("Hip Hop");
+
+        assertThat(tagCache.find("Hip Hop")).isEmpty();
+    }
+}
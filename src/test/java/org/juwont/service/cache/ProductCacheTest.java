@@ -0,0 +1,124 @@
+package org.juwont.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.config.ProductCacheProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.MediaFormat;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    public void setUp() {
+        productCache = cache(TextSearchMode.SUBSTRING);
+    }
+
+    @Test
+    void pages_are_keyed_on_normalised_filters() {
+        final ProductFilterDTO filters = ProductFilterDTO.builder().tags(List.of("Jazz", "Hip Hop", "Jazz")).build();
+        productCache.putPage(filters, List.of(buildProduct(1L, "Wu Store", List.of("Hip Hop"))));
+
+        assertThat(productCache.findPage(ProductFilterDTO.builder().tags(List.of("Hip Hop", "Jazz")).build()))
+                .hasValueSatisfying(products -> assertThat(products).hasSize(1));
+    }
+
+    @Test
+    void update_only_evicts_pages_matching_the_product_before_or_after() {
+        final ProductDTO before = buildProduct(1L, "Wu Store", List.of("Hip Hop"));
+        final ProductDTO after = buildProduct(1L, "XL", List.of("Hip Hop"));
+        final ProductFilterDTO oldStore = ProductFilterDTO.builder().storeName("wu store").build();
+        final ProductFilterDTO newStore = ProductFilterDTO.builder().storeName("XL").build();
+        final ProductFilterDTO otherStore = ProductFilterDTO.builder().storeName("Soul").build();
+        final ProductFilterDTO otherTag = ProductFilterDTO.builder().tags(List.of("Classical")).build();
+        List.of(oldStore, newStore, otherStore, otherTag).forEach(filters -> productCache.putPage(filters, List.of()));
+        productCache.put(before);
+
+        productCache.invalidate(before, after);
+
+        assertThat(productCache.findById(1L)).isEmpty();
+        assertThat(productCache.findPage(oldStore)).isEmpty();
+        assertThat(productCache.findPage(newStore)).isEmpty();
+        assertThat(productCache.findPage(otherStore)).isPresent();
+        assertThat(productCache.findPage(otherTag)).isPresent();
+    }
+
+    @Test
+    void chunk_invalidation_evicts_every_product_and_every_page_matching_one_of_them() {
+        final ProductDTO created = buildProduct(1L, "Wu Store", List.of("Hip Hop"));
+        final ProductDTO deleted = buildProduct(2L, "Soul", List.of("Jazz"));
+        final ProductFilterDTO createdStore = ProductFilterDTO.builder().storeName("Wu Store").build();
+        final ProductFilterDTO deletedTag = ProductFilterDTO.builder().tags(List.of("Jazz")).build();
+        final ProductFilterDTO otherStore = ProductFilterDTO.builder().storeName("XL").build();
+        List.of(createdStore, deletedTag, otherStore).forEach(filters -> productCache.putPage(filters, List.of()));
+        productCache.put(deleted);
+
+        productCache.invalidateAll(List.of(deleted), List.of(created));
+
+        assertThat(productCache.findById(2L)).isEmpty();
+        assertThat(productCache.findPage(createdStore)).isEmpty();
+        assertThat(productCache.findPage(deletedTag)).isEmpty();
+        assertThat(productCache.findPage(otherStore)).isPresent();
+    }
+
+    @Test
+    void wildcards_in_a_text_filter_only_match_themselves() {
+        final ProductFilterDTO literal = ProductFilterDTO.builder().title("Tang_Clan").build();
+        final ProductFilterDTO matching = ProductFilterDTO.builder().title("clan - 36").build();
+        List.of(literal, matching).forEach(filters -> productCache.putPage(filters, List.of()));
+
+        productCache.invalidate(null, buildProduct(1L, "Wu Store", List.of()));
+
+        assertThat(productCache.findPage(literal)).isPresent();
+        assertThat(productCache.findPage(matching)).isEmpty();
+    }
+
+    @Test
+    void text_the_database_may_match_differently_evicts_the_page() {
+        final ProductFilterDTO accented = ProductFilterDTO.builder().storeName("Wü Store").build();
+        productCache.putPage(accented, List.of());
+        productCache.invalidate(null, buildProduct(1L, "Wu Store", List.of()));
+        assertThat(productCache.findPage(accented)).isEmpty();
+
+        productCache = cache(TextSearchMode.FULLTEXT);
+        final ProductFilterDTO phrase = ProductFilterDTO.builder().title("a Tribe").build();
+        productCache.putPage(phrase, List.of());
+        productCache.invalidate(null, buildProduct(1L, "Wu Store", List.of()));
+        assertThat(productCache.findPage(phrase)).isEmpty();
+    }
+
+    private static ProductCache cache(final TextSearchMode textMode) {
+        return new ProductCache(new ProductCacheProperties(true, 100, 100, Duration.ofMinutes(5)),
+                new SearchProperties(textMode),
+                new SimpleMeterRegistry());
+    }
+
+    private static ProductDTO buildProduct(final Long id, final String storeName, final List<String> tags) {
+        return ProductDTO.builder()
+                .id(id)
+                .title("Wu Tang Clan - 36 Chambers")
+                .distribution("digital")
+                .format(MediaFormat.MP3)
+                .currency(Currency.getInstance("USD"))
+                .price(new BigDecimal("15.50"))
+                .storeName(storeName)
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(tags)
+                .build();
+    }
+}
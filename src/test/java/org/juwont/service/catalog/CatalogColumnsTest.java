@@ -0,0 +1,171 @@
+package org.juwont.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.MediaFormat;
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.TagMatchMode;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogColumnsTest {
+
+    private static final Instant FIRST_RELEASE = Instant.parse("2020-01-01T00:00:00Z");
+
+    private CatalogColumns columns;
+
+    @BeforeEach
+    public void setUp() {
+        columns = new CatalogColumns(2);
+        for (long id = 1; id <= 2000; id++) {
+            columns.upsert(buildProduct(id, "Store %s".formatted(id % 10), List.of("Tag %s".formatted(id % 3))));
+        }
+    }
+
+    @Test
+    void pages_follow_id_order_by_offset_and_by_cursor() {
+        assertThat(page(columns, ProductFilterDTO.builder().page(3).size(5).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(11L, 12L, 13L, 14L, 15L);
+        assertThat(page(columns, ProductFilterDTO.builder().cursor(new ProductCursor(1500L).encode()).size(3).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(1501L, 1502L, 1503L);
+    }
+
+    @Test
+    void filters_by_text_and_dates_ignoring_case() {
+        final List<ProductDTO> products = page(columns, ProductFilterDTO.builder()
+                .storeName("store 7")
+                .releaseDateBefore(FIRST_RELEASE.plus(Duration.ofDays(100)))
+                .releaseDateAfter(FIRST_RELEASE.plus(Duration.ofDays(130)))
+                .build());
+
+        assertThat(products).extracting(ProductDTO::id).containsExactly(107L, 117L, 127L);
+    }
+
+    @Test
+    void filters_by_any_or_all_tags() {
+        columns.upsert(buildProduct(2001L, "Store 1", List.of("Tag 0", "Tag 1")));
+
+        assertThat(page(columns, ProductFilterDTO.builder().tags(List.of("tag 0", "Tag 1")).size(4).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(1L, 3L, 4L, 6L);
+        assertThat(page(columns, ProductFilterDTO.builder()
+                .tags(List.of("Tag 0", "Tag 1"))
+                .tagMatch(TagMatchMode.ALL)
+                .build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(2001L);
+        assertThat(page(columns, ProductFilterDTO.builder().tags(List.of("Jazz")).build())).isEmpty();
+    }
+
+    @Test
+    void updates_and_removals_apply_in_place() {
+        columns.upsert(buildProduct(3L, "Store 3", List.of("Jazz")));
+        columns.remove(6L);
+
+        assertThat(page(columns, ProductFilterDTO.builder().tags(List.of("Tag 0")).size(2).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(9L, 12L);
+        assertThat(page(columns, ProductFilterDTO.builder().tags(List.of("Jazz")).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(3L);
+        assertThat(columns.size()).isEqualTo(1999);
+    }
+
+    @Test
+    void merges_new_products_below_the_highest_id_into_pages() {
+        final CatalogColumns gaps = new CatalogColumns(2);
+        gaps.upsert(buildProduct(10L, "Store 0", List.of("Tag 0")));
+        gaps.upsert(buildProduct(30L, "Store 0", List.of("Tag 0")));
+
+        assertThat(gaps.upsert(buildProduct(20L, "Store 0", List.of("Tag 0", "Jazz")))).isTrue();
+        assertThat(gaps.upsert(buildProduct(5L, "Store 1", List.of("Tag 1")))).isTrue();
+
+        assertThat(page(gaps, ProductFilterDTO.builder().build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(5L, 10L, 20L, 30L);
+        assertThat(page(gaps, ProductFilterDTO.builder().page(2).size(2).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(20L, 30L);
+        assertThat(page(gaps, ProductFilterDTO.builder().cursor(new ProductCursor(10L).encode()).size(1).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(20L);
+        assertThat(page(gaps, ProductFilterDTO.builder().tags(List.of("tag 0")).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(10L, 20L, 30L);
+        assertThat(page(gaps, ProductFilterDTO.builder().storeName("store 1").build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(5L);
+        assertThat(gaps.size()).isEqualTo(4);
+
+        gaps.remove(20L);
+        assertThat(page(gaps, ProductFilterDTO.builder().build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(5L, 10L, 30L);
+        assertThat(gaps.upsert(buildProduct(25L, "Store 0", List.of()))).isFalse();
+    }
+
+    @Test
+    void ignores_older_versions_and_removed_products() {
+        columns.upsert(buildProduct(3L, 2L, "Store 3", List.of()));
+        columns.upsert(buildProduct(3L, 1L, "Store 9", List.of()));
+        columns.remove(1000L);
+
+        assertThat(columns.upsert(buildProduct(1000L, "Store 0", List.of()))).isTrue();
+        assertThat(page(columns, ProductFilterDTO.builder().cursor(new ProductCursor(999L).encode()).size(1).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(1001L);
+        assertThat(page(columns, ProductFilterDTO.builder().storeName("Store 3").size(1).build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void matches_wildcards_literally_and_leaves_accented_text_to_the_database() {
+        columns.upsert(buildProduct(2001L, "Store_1", List.of()));
+        columns.upsert(buildProduct(2002L, "Café", List.of()));
+
+        assertThat(page(columns, ProductFilterDTO.builder().storeName("store_1").build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(2001L);
+        assertThat(page(columns, ProductFilterDTO.builder().storeName("Caf").build()))
+                .extracting(ProductDTO::id)
+                .containsExactly(2002L);
+        assertThat(columns.page(ProductFilterDTO.builder().storeName("Cafe").build())).isEmpty();
+        assertThat(columns.page(ProductFilterDTO.builder().storeName("Café").build())).isEmpty();
+    }
+
+    private static List<ProductDTO> page(final CatalogColumns columns, final ProductFilterDTO filters) {
+        return columns.page(filters).orElseThrow();
+    }
+
+    private static ProductDTO buildProduct(final Long id, final String storeName, final List<String> tags) {
+        return buildProduct(id, 0L, storeName, tags);
+    }
+
+    private static ProductDTO buildProduct(final Long id, final Long version, final String storeName, final List<String> tags) {
+        return ProductDTO.builder()
+                .id(id)
+                .version(version)
+                .title("Product %s".formatted(id))
+                .distribution("digital")
+                .format(MediaFormat.MP3)
+                .currency(Currency.getInstance("USD"))
+                .price(new BigDecimal("15.50"))
+                .storeName(storeName)
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(FIRST_RELEASE.plus(Duration.ofDays(id)))
+                .productGroupReleaseDate(FIRST_RELEASE.plus(Duration.ofDays(id)))
+                .tags(tags)
+                .build();
+    }
+}
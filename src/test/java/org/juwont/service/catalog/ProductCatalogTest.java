@@ -0,0 +1,183 @@
+package org.juwont.service.catalog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.config.ProductCatalogProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.MediaFormat;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.repository.ProductRepository;
+import org.juwont.repository.projection.ProductRow;
+import org.juwont.service.mapper.ProductMapper;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductFilterDTO;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the catalog against a stubbed table. The scheduler is a mock, so a reload the catalog schedules only runs
+ * when a test runs it.
+ */
+class ProductCatalogTest {
+
+    private static final ProductFilterDTO FIRST_PAGE = ProductFilterDTO.builder().size(100).build();
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private TaskScheduler taskScheduler;
+    private Supplier<Stream<ProductRow>> table;
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    public void setUp() {
+        taskScheduler = mock(TaskScheduler.class);
+        catalog = catalog(TextSearchMode.SUBSTRING);
+    }
+
+    private ProductCatalog catalog(final TextSearchMode textMode) {
+        final ProductRepository repository = mock(ProductRepository.class);
+        when(repository.streamAllRows(anyInt())).thenAnswer(invocation -> table.get());
+
+        return new ProductCatalog(
+                new ProductCatalogProperties(true, Duration.ofMinutes(15), 1000, 1),
+                new SearchProperties(textMode),
+                repository,
+                productMapper,
+                mock(PlatformTransactionManager.class),
+                taskScheduler,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void answers_nothing_until_loaded_then_picks_up_the_table_on_reload() {
+        table = () -> Stream.of(row(1L, 0L, "Jazz"), row(1L, 0L, "Soul"), row(2L, 0L, null));
+        assertThat(catalog.findPage(FIRST_PAGE)).isEmpty();
+
+        catalog.load();
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id, ProductDTO::tags)
+                .containsExactly(tuple(1L, List.of("Jazz", "Soul")), tuple(2L, List.of()));
+
+        table = () -> Stream.of(row(2L, 1L, null), row(3L, 0L, null));
+        catalog.reload();
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id, ProductDTO::version)
+                .containsExactly(tuple(2L, 1L), tuple(3L, 0L));
+    }
+
+    @Test
+    void replays_changes_committed_while_a_reload_reads_the_table() {
+        table = () -> Stream.of(row(1L, 0L, null));
+        catalog.load();
+
+        // The reload reads version 0 of product 1, then an update to version 1 commits before the reload finishes.
+        table = () -> Stream.of(row(1L, 0L, null), row(2L, 0L, null))
+                .peek(row -> {
+                    if (row.id() == 2L) {
+                        catalog.put(product(row(1L, 1L, null)));
+                    }
+                });
+        catalog.reload();
+
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id, ProductDTO::version)
+                .containsExactly(tuple(1L, 1L), tuple(2L, 0L));
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void falls_back_to_the_database_until_a_reload_places_products_out_of_id_order() {
+        table = () -> Stream.of(row(10L, 0L, null), row(30L, 0L, null));
+        catalog.load();
+
+        catalog.put(product(row(20L, 0L, null)));
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id)
+                .containsExactly(10L, 20L, 30L);
+
+        catalog.put(product(row(5L, 0L, null)));
+        assertThat(catalog.findPage(FIRST_PAGE)).isEmpty();
+
+        final ArgumentCaptor<Runnable> reload = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(reload.capture(), any(Instant.class));
+        table = () -> Stream.of(row(5L, 0L, null), row(10L, 0L, null), row(20L, 0L, null), row(30L, 0L, null));
+        reload.getValue().run();
+
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id)
+                .containsExactly(5L, 10L, 20L, 30L);
+    }
+
+    @Test
+    void applies_changes_only_once_their_transaction_commits() {
+        table = () -> Stream.of(row(1L, 0L, null), row(2L, 0L, null));
+        catalog.load();
+
+        TransactionSynchronizationManager.initSynchronization();
+        catalog.put(product(row(3L, 0L, null)));
+        catalog.remove(1L);
+        final List<TransactionSynchronization> synchronizations =
+                new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id)
+                .containsExactly(1L, 2L);
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(catalog.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id)
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    void leaves_text_filters_to_the_database_in_fulltext_mode() {
+        final ProductCatalog fullText = catalog(TextSearchMode.FULLTEXT);
+        table = () -> Stream.of(row(1L, 0L, null));
+        fullText.load();
+
+        assertThat(fullText.findPage(FIRST_PAGE.toBuilder().title("P").build())).isEmpty();
+        assertThat(fullText.findPage(FIRST_PAGE).orElseThrow())
+                .extracting(ProductDTO::id)
+                .containsExactly(1L);
+    }
+
+    private ProductDTO product(final ProductRow row) {
+        return productMapper.toDTOs(List.of(row)).getFirst();
+    }
+
+    private static ProductRow row(final Long id, final Long version, final String tag) {
+        return new ProductRow(id, version, "Product %s".formatted(id), "digital", MediaFormat.MP3,
+                Currency.getInstance("USD"), new BigDecimal("15.50"), Instant.parse("2020-01-01T00:00:00Z"),
+                "Wu Store", "Wu Tang Records", Instant.parse("2020-01-01T00:00:00Z"), tag);
+    }
+}
@@ -0,0 +1,141 @@
+package org.juwont.service.feed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.ProductEventType;
+import org.juwont.repository.ProductEventRepository;
+import org.juwont.web.dto.ChangesDTO;
+import org.juwont.web.dto.ProductDTO;
+import org.juwont.web.dto.ProductEventDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keeps a transaction that recorded an event open while a later one commits, the way a slow writer does in production.
+ * Not transactional itself, so the events commit for real.
+ */
+@SpringBootTest
+class ProductChangeFeedTest {
+
+    @Autowired
+    ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    ProductEventRepository productEventRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private TransactionTemplate transaction;
+    private long after;
+    private OpenTransaction open;
+
+    @BeforeEach
+    public void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        after = transaction.execute(status -> productEventRepository.findLatestSequence()).orElse(0L);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (open != null) {
+            open.finish(false);
+        }
+        transaction.executeWithoutResult(status -> entityManager.createQuery("DELETE FROM ProductEvent").executeUpdate());
+    }
+
+    @Test
+    void delivers_events_committed_behind_an_open_transaction_and_the_late_one_after_them() throws Exception {
+        open = OpenTransaction.recording(this, 1L);
+        record(2L);
+
+        final ChangesDTO committed = changesAfter(after);
+        assertThat(committed.events())
+                .extracting(ProductEventDTO::productId)
+                .containsExactly(2L);
+
+        open.finish(true);
+
+        assertThat(changesAfter(committed.next()).events())
+                .extracting(ProductEventDTO::productId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void a_rolled_back_transaction_holds_nothing_back() throws Exception {
+        open = OpenTransaction.recording(this, 1L);
+        record(2L);
+        final ChangesDTO committed = changesAfter(after);
+
+        open.finish(false);
+        assertThat(productChangeFeed.poll(committed.next(), 10).hasResult()).isFalse();
+
+        record(3L);
+        assertThat(changesAfter(committed.next()).events())
+                .extracting(ProductEventDTO::productId)
+                .containsExactly(3L);
+    }
+
+    private ChangesDTO changesAfter(final long sequence) {
+        final DeferredResult<ChangesDTO> result = productChangeFeed.poll(sequence, 10);
+        assertThat(result.hasResult()).isTrue();
+        return (ChangesDTO) result.getResult();
+    }
+
+    private void record(final Long productId) {
+        transaction.executeWithoutResult(status -> productChangeFeed.record(ProductEventType.UPDATED, product(productId)));
+    }
+
+    private static ProductDTO product(final Long id) {
+        return ProductDTO.builder().id(id).version(1L).build();
+    }
+
+    /**
+     * Records an event on another thread and keeps its transaction open, holding the sequence number it took,
+     * until {@link #finish(boolean)}.
+     */
+    private static final class OpenTransaction {
+
+        private final CountDownLatch finish = new CountDownLatch(1);
+        private volatile boolean commit;
+        private Thread thread;
+
+        static OpenTransaction recording(final ProductChangeFeedTest test, final Long productId) throws InterruptedException {
+            final OpenTransaction open = new OpenTransaction();
+            final CountDownLatch recorded = new CountDownLatch(1);
+            open.thread = Thread.ofPlatform().start(() -> test.transaction.executeWithoutResult(status -> {
+                test.productChangeFeed.record(ProductEventType.UPDATED, product(productId));
+                recorded.countDown();
+                try {
+                    open.finish.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (!open.commit) {
+                    status.setRollbackOnly();
+                }
+            }));
+            recorded.await();
+            return open;
+        }
+
+        void finish(final boolean commit) throws InterruptedException {
+            this.commit = commit;
+            finish.countDown();
+            thread.join();
+        }
+    }
+}
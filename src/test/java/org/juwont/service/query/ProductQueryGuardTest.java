@@ -0,0 +1,99 @@
+package org.juwont.service.query;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.config.QueryGuardProperties;
+import org.juwont.config.SearchProperties;
+import org.juwont.domain.ExpensiveQueryMode;
+import org.juwont.domain.ProductCursor;
+import org.juwont.domain.TextSearchMode;
+import org.juwont.service.exception.QueryRejectedException;
+import org.juwont.web.dto.ProductFilterDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductQueryGuardTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void rejects_page_sizes_out_of_bounds() {
+        final ProductQueryGuard guard = guard(ExpensiveQueryMode.DEGRADE, TextSearchMode.SUBSTRING);
+
+        assertThatThrownBy(() -> guard.check(ProductFilterDTO.builder().size(101).build()))
+                .isInstanceOf(QueryRejectedException.class);
+        assertThatThrownBy(() -> guard.check(ProductFilterDTO.builder().size(0).build()))
+                .isInstanceOf(QueryRejectedException.class);
+        assertThat(meterRegistry.get("store.products.query.rejected").tag("reason", "page_size").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void text_filters_are_cheap_with_a_selective_filter_or_fulltext() {
+        final ProductFilterDTO withTags = ProductFilterDTO.builder().title("Wu").tags(List.of("Hip Hop")).size(50).build();
+        final ProductFilterDTO withReleaseWindow = ProductFilterDTO.builder()
+                .title("Wu")
+                .releaseDateBefore(Instant.parse("2020-01-01T00:00:00Z"))
+                .releaseDateAfter(Instant.parse("2021-01-01T00:00:00Z"))
+                .size(50)
+                .build();
+        final ProductFilterDTO textOnly = ProductFilterDTO.builder().title("Wu").size(50).build();
+
+        assertThat(guard(ExpensiveQueryMode.REJECT, TextSearchMode.SUBSTRING).check(withTags)).isEqualTo(withTags);
+        assertThat(guard(ExpensiveQueryMode.REJECT, TextSearchMode.SUBSTRING).check(withReleaseWindow)).isEqualTo(withReleaseWindow);
+        assertThat(guard(ExpensiveQueryMode.REJECT, TextSearchMode.FULLTEXT).check(textOnly)).isEqualTo(textOnly);
+    }
+
+    @Test
+    void degrades_unindexed_text_queries_that_start_at_the_requested_row() {
+        final ProductQueryGuard guard = guard(ExpensiveQueryMode.DEGRADE, TextSearchMode.SUBSTRING);
+        final String cursor = new ProductCursor(10L).encode();
+
+        assertThat(guard.check(ProductFilterDTO.builder().storeName("Wu").size(50).build()).size()).isEqualTo(10);
+        assertThat(guard.check(ProductFilterDTO.builder().storeName("Wu").size(50).cursor(cursor).build()).size()).isEqualTo(10);
+        assertThat(guard.check(ProductFilterDTO.builder().storeName("Wu").size(50).page(2).build()).size()).isEqualTo(50);
+        assertThat(meterRegistry.get("store.products.query.degraded").tag("reason", "unindexed_text").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void rejects_deep_offsets_unless_turned_off() {
+        final ProductFilterDTO deepPage = ProductFilterDTO.builder().page(2000).size(10).build();
+
+        assertThatThrownBy(() -> guard(ExpensiveQueryMode.DEGRADE, TextSearchMode.SUBSTRING).check(deepPage))
+                .isInstanceOf(QueryRejectedException.class)
+                .hasMessageContaining("X-Next-Cursor");
+        assertThat(guard(ExpensiveQueryMode.OFF, TextSearchMode.SUBSTRING).check(deepPage)).isEqualTo(deepPage);
+    }
+
+    @Test
+    void rejects_expensive_facets_only_in_reject_mode() {
+        final ProductFilterDTO textOnly = ProductFilterDTO.builder().title("Wu").page(2000).build();
+
+        assertThatThrownBy(() -> guard(ExpensiveQueryMode.REJECT, TextSearchMode.SUBSTRING).checkFacets(textOnly))
+                .isInstanceOf(QueryRejectedException.class);
+        guard(ExpensiveQueryMode.REJECT, TextSearchMode.FULLTEXT).checkFacets(textOnly);
+        guard(ExpensiveQueryMode.DEGRADE, TextSearchMode.SUBSTRING).checkFacets(textOnly);
+        assertThat(meterRegistry.get("store.products.query.rejected").tag("reason", "unindexed_text").counter().count())
+                .isEqualTo(1);
+    }
+
+    private ProductQueryGuard guard(final ExpensiveQueryMode mode, final TextSearchMode textMode) {
+        return new ProductQueryGuard(
+                new QueryGuardProperties(100, 10000, Duration.ofSeconds(5), mode, 10),
+                new SearchProperties(textMode),
+                meterRegistry);
+    }
+}
@@ -1,6 +1,8 @@
 package org.juwont.web;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,14 +13,18 @@ import org.juwont.domain.MediaFormat;
 import org.juwont.entity.Product;
 import org.juwont.entity.Tag;
 import org.juwont.web.dto.CreateProductDTO;
+import org.juwont.web.dto.ProductDTO;
 import org.juwont.repository.ProductRepository;
 import org.juwont.repository.TagRepository;
 import org.juwont.web.dto.UpdateProductDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,10 +34,20 @@ import java.util.Currency;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -57,6 +73,7 @@ class ProductControllerTest {
     public void setUp() {
         entityManager.createQuery("DELETE FROM Product").executeUpdate();
         entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        entityManager.createQuery("DELETE FROM ProductEvent").executeUpdate();
         entityManager.flush();
     }
 
@@ -114,6 +131,85 @@ class ProductControllerTest {
 
     }
 
+    @Test
+    void user_can_bulk_create_products_from_a_json_array() throws Exception {
+        final List<CreateProductDTO> createProductDTOs = List.of(
+                buildProductDTO().toBuilder().tags(List.of("Hip Hop")).build(),
+                buildProductDTO().toBuilder().title("Wu Tang Clan - 36 Chambers").tags(List.of("Hip Hop")).build(),
+                buildProductDTO().toBuilder().title("Adele - 30").currency("CHY").tags(List.of()).build());
+
+        final String content = objectMapper.writeValueAsString(createProductDTOs);
+        performRequest(HttpMethod.POST, "/api/products/bulk", content)
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "created": 2,
+                          "failed": 1,
+                          "errors": [
+                            {
+                              "index": 2,
+                              "errorMessage": "Error on field (currency) : You can only choose currencies: GBP, EUR & USD"
+                            }
+                          ]
+                        }
+                        """
+                ));
+    }
+
+    @Test
+    void bulk_create_reports_items_that_cannot_be_read_and_carries_on() throws Exception {
+        final ObjectNode badFormat = objectMapper.valueToTree(buildProductDTO().toBuilder().title("Adele - 25").build());
+        badFormat.put("format", "EIGHT_TRACK");
+        final ObjectNode badDate = objectMapper.valueToTree(buildProductDTO().toBuilder().title("Adele - 21").build());
+        badDate.put("releaseDate", "yesterday");
+
+        final String content = objectMapper.writeValueAsString(List.of(
+                objectMapper.valueToTree(buildProductDTO().toBuilder().tags(List.of("Hip Hop")).build()),
+                badFormat,
+                badDate,
+                objectMapper.valueToTree(buildProductDTO().toBuilder().title("Adele - 30").tags(List.of()).build())));
+        performRequest(HttpMethod.POST, "/api/products/bulk", content)
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "created": 2,
+                          "failed": 2,
+                          "errors": [
+                            {
+                              "index": 1,
+                              "errorMessage": "Error on field (format) : Value could not be read"
+                            },
+                            {
+                              "index": 2,
+                              "errorMessage": "Error on field (releaseDate) : Value could not be read"
+                            }
+                          ]
+                        }
+                        """
+                ));
+    }
+
+    @Test
+    void user_can_bulk_create_products_from_ndjson() throws Exception {
+        final String content = objectMapper.writeValueAsString(buildProductDTO().toBuilder().tags(List.of("Hip Hop")).build())
+                + "\n"
+                + objectMapper.writeValueAsString(buildProductDTO().toBuilder().title("Adele - 30").tags(List.of()).build());
+
+        mockMvc.perform(request(HttpMethod.POST, "/api/products/bulk")
+                        .content(content)
+                        .contentType(APPLICATION_NDJSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "created": 2,
+                          "failed": 0,
+                          "errors": []
+                        }
+                        """
+                ));
+    }
+
     private static CreateProductDTO buildProductDTO() {
         return CreateProductDTO.builder()
                 .title("A Tribe Called Quest - Midnight Marauders")
@@ -233,6 +329,393 @@ class ProductControllerTest {
 
     }
 
+    @Test
+    void returns_each_product_once_when_it_matches_several_tags() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Tag classicalTag = tagRepository.create(new Tag("Classical"));
+
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("Kanye West - Late Registration", "Good Music", "Good Music").toBuilder()
+                .tags(List.of(hipHopTag, classicalTag))
+                .build());
+        productRepository.create(buildProductEntity("De La Soul = 3 Foot High", "Soul", "Brand Nubian"));
+
+        // A join would return Kanye West once per tag, so a page of three would hold a duplicate.
+        performRequest(HttpMethod.GET, "/api/products?tags=Hip Hop&tags=Classical&size=3")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Wu Tang Clan - 36 Chambers"))
+                .andExpect(jsonPath("$[1].title").value("Kanye West - Late Registration"));
+    }
+
+    @Test
+    void filters_products_carrying_all_tags() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Tag classicalTag = tagRepository.create(new Tag("Classical"));
+
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("Kanye West - Late Registration", "Good Music", "Good Music").toBuilder()
+                .tags(List.of(hipHopTag, classicalTag))
+                .build());
+
+        performRequest(HttpMethod.GET, "/api/products?tags=Hip Hop&tags=Classical&tag_match=all")
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        [
+                          {
+                            "title": "Kanye West - Late Registration",
+                            "tags": ["Hip Hop", "Classical"]
+                          }
+                        ]
+                        """
+                ));
+    }
+
+    @Test
+    void pages_through_products_with_a_cursor() throws Exception {
+        productRepository.create(buildProductEntity());
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records"));
+        productRepository.create(buildProductEntity("De La Soul = 3 Foot High", "Soul", "Brand Nubian"));
+
+        final String nextCursor = performRequest(HttpMethod.GET, "/api/products?size=2")
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        performRequest(HttpMethod.GET, "/api/products?size=2&cursor=%s".formatted(nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(content().json("""
+                        [
+                            {
+                                "title" : "De La Soul = 3 Foot High",
+                                "storeName" : "Soul",
+                                "productGroupTitle": "Brand Nubian"
+                            }
+                        ]
+                        """
+                ));
+    }
+
+    @Test
+    void filter_fails_when_cursor_is_not_valid() throws Exception {
+        performRequest(HttpMethod.GET, "/api/products?cursor=not-a-cursor")
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("""
+                        {
+                          "errorMessage" : "Cursor: not-a-cursor is not valid"
+                        }
+                        """));
+    }
+
+    @Test
+    void filter_fails_when_page_size_is_above_the_maximum() throws Exception {
+        performRequest(HttpMethod.GET, "/api/products?size=1000000")
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("""
+                        {
+                          "errorMessage" : "Page size must be between 1 and 100"
+                        }
+                        """));
+    }
+
+    @Test
+    void filter_caps_the_page_of_unindexed_text_queries() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            productRepository.create(buildProductEntity("Wu Tang Clan %s".formatted(i), "Wu Store", "Wu Tang Records"));
+        }
+
+        performRequest(HttpMethod.GET, "/api/products?title=Wu Tang&size=50")
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(header().string("X-Degraded-Page-Size", "10"))
+                .andExpect(jsonPath("$.length()").value(10));
+        performRequest(HttpMethod.GET, "/api/products?title=Wu Tang&size=11&page=2")
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Degraded-Page-Size"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void bulk_update_changes_every_product_matching_the_filters() throws Exception {
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records"));
+        productRepository.create(buildProductEntity("Wu Tang Clan - Forever", "Wu Store", "Wu Tang Records"));
+        productRepository.create(buildProductEntity("De La Soul = 3 Foot High", "Soul", "Brand Nubian"));
+
+        performRequest(HttpMethod.PATCH, "/api/products?store_name=Wu Store",
+                objectMapper.writeValueAsString(UpdateProductDTO.builder().price("9.99").build()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "affected": 2,
+                          "chunks": 1
+                        }
+                        """));
+
+        performRequest(HttpMethod.GET, "/api/products?store_name=Wu Store")
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].price").value(everyItem(equalTo(9.99))))
+                .andExpect(jsonPath("$[*].version").value(everyItem(equalTo(1))));
+        performRequest(HttpMethod.GET, "/api/products?store_name=Soul")
+                .andExpect(jsonPath("$[0].price").value(15.5));
+    }
+
+    @Test
+    void bulk_delete_removes_every_product_matching_the_filters() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("De La Soul = 3 Foot High", "Soul", "Brand Nubian"));
+
+        performRequest(HttpMethod.DELETE, "/api/products?tags=Hip Hop")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        performRequest(HttpMethod.GET, "/api/products")
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("De La Soul = 3 Foot High"));
+    }
+
+    @Test
+    void bulk_changes_fail_without_a_filter() throws Exception {
+        performRequest(HttpMethod.PATCH, "/api/products",
+                objectMapper.writeValueAsString(UpdateProductDTO.builder().price("9.99").build()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("""
+                        {
+                          "errorMessage" : "Bulk changes need at least one filter"
+                        }
+                        """));
+    }
+
+    @Test
+    void change_feed_returns_product_mutations_in_sequence_order() throws Exception {
+        final CreateProductDTO request = buildProductDTO().toBuilder().tags(List.of("Hip Hop")).build();
+        final String created = performRequest(HttpMethod.POST, "/api/product/create", objectMapper.writeValueAsString(request))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        final Long id = objectMapper.readValue(created, ProductDTO.class).id();
+        performRequest(HttpMethod.PUT, "/api/product/%s".formatted(id),
+                objectMapper.writeValueAsString(UpdateProductDTO.builder().storeName("XL").build()))
+                .andExpect(status().isOk());
+        performRequest(HttpMethod.DELETE, "/api/product/%s/delete".formatted(id))
+                .andExpect(status().isNoContent());
+
+        final MvcResult changes = performRequest(HttpMethod.GET, "/api/products/changes?after=0").andReturn();
+
+        assertThat(changes.getRequest().isAsyncStarted()).isTrue();
+        mockMvc.perform(asyncDispatch(changes))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events.length()").value(3))
+                .andExpect(jsonPath("$.events[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.events[1].type").value("UPDATED"))
+                .andExpect(jsonPath("$.events[2].type").value("DELETED"))
+                .andExpect(content().json("""
+                        {
+                          "events": [
+                            { "type": "CREATED", "productId": %s, "version": 0 },
+                            { "type": "UPDATED", "productId": %s, "version": 1 },
+                            { "type": "DELETED", "productId": %s, "version": 1 }
+                          ]
+                        }
+                        """.formatted(id, id, id)));
+    }
+
+    @Test
+    void change_feed_fails_when_limit_is_out_of_bounds() throws Exception {
+        performRequest(HttpMethod.GET, "/api/products/changes?limit=0")
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(content().json("""
+                        {
+                          "errorMessage" : "Limit must be between 1 and 1000"
+                        }
+                        """));
+    }
+
+    @Test
+    void user_can_export_filtered_products_as_ndjson() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Tag classicalTag = tagRepository.create(new Tag("Classical"));
+
+        productRepository.create(buildProductEntity());
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("Kanye West - Late Registration", "Good Music", "Good Music").toBuilder()
+                .tags(List.of(hipHopTag, classicalTag))
+                .build());
+
+        final String body = mockMvc.perform(request(HttpMethod.GET, "/api/products/export?tags=Hip Hop")
+                        .accept(APPLICATION_NDJSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final List<ProductDTO> products = body.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, ProductDTO.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+
+        assertThat(products)
+                .extracting(ProductDTO::title)
+                .containsExactly("Wu Tang Clan - 36 Chambers", "Kanye West - Late Registration");
+        assertThat(products.get(0).tags()).containsExactly("Hip Hop");
+        assertThat(products.get(1).tags()).containsExactlyInAnyOrder("Hip Hop", "Classical");
+    }
+
+    @Test
+    void user_can_get_product_by_id() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Product product = productRepository.create(buildProductEntity().toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+
+        performRequest(HttpMethod.GET, "/api/product/%s".formatted(product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                          "id": %s,
+                          "title": "A Tribe Called Quest - Midnight Marauders",
+                          "distribution": "digital",
+                          "format": "MP3",
+                          "currency": "USD",
+                          "price": 15.5,
+                          "storeName": "Tribal",
+                          "productGroupTitle": "Native Tongues",
+                          "tags": ["Hip Hop"]
+                        }
+                        """.formatted(product.getId())
+                ));
+    }
+
+    @Test
+    void get_product_is_not_modified_while_its_etag_matches() throws Exception {
+        final Product product = productRepository.create(buildProductEntity());
+
+        final String eTag = performRequest(HttpMethod.GET, "/api/product/%s".formatted(product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"%s-0\"".formatted(product.getId())))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(request(HttpMethod.GET, "/api/product/%s".formatted(product.getId()))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void filter_is_not_modified_until_a_product_on_the_page_changes() throws Exception {
+        final Product product = productRepository.create(buildProductEntity());
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records"));
+
+        final String eTag = performRequest(HttpMethod.GET, "/api/products")
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(request(HttpMethod.GET, "/api/products").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        final String content = objectMapper.writeValueAsString(UpdateProductDTO.builder().storeName("XL").build());
+        performRequest(HttpMethod.PUT, "/api/product/%s".formatted(product.getId()), content)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(request(HttpMethod.GET, "/api/products").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    void filter_returns_cbor_when_accepted() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+
+        final byte[] body = mockMvc.perform(request(HttpMethod.GET, "/api/products").accept(APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        final List<ProductDTO> products = Jackson2ObjectMapperBuilder.cbor().build()
+                .readValue(body, new TypeReference<>() {});
+
+        assertThat(products).singleElement().satisfies(product -> {
+            assertThat(product.title()).isEqualTo("Wu Tang Clan - 36 Chambers");
+            assertThat(product.price()).isEqualByComparingTo("15.50");
+            assertThat(product.currency()).isEqualTo(Currency.getInstance("USD"));
+            assertThat(product.tags()).containsExactly("Hip Hop");
+        });
+    }
+
+    @Test
+    void get_fails_when_id_not_found() throws Exception {
+        performRequest(HttpMethod.GET, "/api/product/%s".formatted(1))
+                .andExpect(status().isNotFound())
+                .andExpect(content().json("""
+                        {
+                          "errorMessage" : "Product: 1 does not exit"
+                        }
+                        """));
+    }
+
+    @Test
+    void counts_facets_of_the_filtered_products() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        final Tag classicalTag = tagRepository.create(new Tag("Classical"));
+
+        productRepository.create(buildProductEntity());
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store", "Wu Tang Records").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("Kanye West - Late Registration", "Good Music", "Good Music").toBuilder()
+                .tags(List.of(hipHopTag, classicalTag))
+                .format(MediaFormat.VINYL)
+                .build());
+
+        performRequest(HttpMethod.GET, "/api/products/facets?tags=Hip Hop")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(content().json("""
+                        {
+                          "total": 2,
+                          "tags": { "Hip Hop": 2, "Classical": 1 },
+                          "storeNames": { "Wu Store": 1, "Good Music": 1 },
+                          "formats": { "MP3": 1, "VINYL": 1 },
+                          "distributions": { "digital": 2 },
+                          "currencies": { "USD": 2 }
+                        }
+                        """, true
+                ));
+    }
+
     @Test
     void user_can_update_product_details() throws Exception {
         final Product product = productRepository.create(buildProductEntity());
@@ -0,0 +1,108 @@
+package org.juwont.web;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.MediaFormat;
+import org.juwont.entity.Product;
+import org.juwont.entity.Tag;
+import org.juwont.repository.ProductRepository;
+import org.juwont.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ProductMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TagRepository tagRepository;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager.createQuery("DELETE FROM Product").executeUpdate();
+        entityManager.createQuery("DELETE FROM Tag").executeUpdate();
+        entityManager.flush();
+    }
+
+    @Test
+    void filter_records_rows_and_statements_by_active_filters() throws Exception {
+        final Tag hipHopTag = tagRepository.create(new Tag("Hip Hop"));
+        productRepository.create(buildProductEntity("Wu Tang Clan - 36 Chambers", "Wu Store").toBuilder()
+                .tags(List.of(hipHopTag))
+                .build());
+        productRepository.create(buildProductEntity("De La Soul = 3 Foot High", "Soul"));
+        final Search rows = meterRegistry.find("store.products.filter.rows").tag("filters", "store_name+tags");
+        final Search statements = meterRegistry.find("store.http.sql.statements").tag("uri", "/api/products");
+        final double rowsBefore = totalAmount(rows);
+        final double statementsBefore = totalAmount(statements);
+
+        mockMvc.perform(get("/api/products?store_name=Wu Store&tags=Hip Hop"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products?store_name=Wu Store&tags=Hip Hop"))
+                .andExpect(status().isOk());
+
+        assertThat(totalAmount(rows) - rowsBefore).isEqualTo(2);
+        assertThat(totalAmount(statements) - statementsBefore).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void service_and_repository_methods_are_timed() throws Exception {
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("store.service").tag("method", "findByFilters").timer()).isNotNull();
+        assertThat(meterRegistry.find("store.repository").tag("method", "filter").timer()).isNotNull();
+    }
+
+    private static double totalAmount(final Search search) {
+        return Optional.ofNullable(search.summary())
+                .map(DistributionSummary::totalAmount)
+                .orElse(0.0);
+    }
+
+    private static Product buildProductEntity(final String title, final String storeName) {
+        return Product.builder()
+                .title(title)
+                .price(new BigDecimal("15.50"))
+                .currency(Currency.getInstance("USD"))
+                .format(MediaFormat.MP3)
+                .distribution("digital")
+                .storeName(storeName)
+                .productGroupTitle("Wu Tang Records")
+                .releaseDate(Instant.now())
+                .productGroupReleaseDate(Instant.now())
+                .tags(List.of())
+                .build();
+    }
+}
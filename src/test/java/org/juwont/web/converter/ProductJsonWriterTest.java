@@ -0,0 +1,54 @@
+package org.juwont.web.converter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.juwont.domain.MediaFormat;
+import org.juwont.web.dto.ProductDTO;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductJsonWriterTest {
+
+    // Configured like the application's ObjectMapper: ISO-8601 dates, null properties included.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void writes_what_the_object_mapper_writes() throws IOException {
+        final List<ProductDTO> products = List.of(
+                ProductDTO.builder()
+                        .id(1L)
+                        .version(3L)
+                        .title("Wu Tang Clan - 36 \"Chambers\"")
+                        .distribution("digital")
+                        .format(MediaFormat.WAV24)
+                        .currency(Currency.getInstance("GBP"))
+                        .price(new BigDecimal("15.50"))
+                        .releaseDate(Instant.parse("1993-11-09T00:00:00.123456789Z"))
+                        .storeName("Wu Störe")
+                        .productGroupTitle("Wu Tang Records")
+                        .productGroupReleaseDate(Instant.parse("1993-11-09T00:00:00Z"))
+                        .tags(List.of("Hip Hop", "East Coast"))
+                        .build(),
+                ProductDTO.builder()
+                        .id(2L)
+                        .tags(List.of())
+                        .build(),
+                ProductDTO.builder().build());
+
+        final StringWriter json = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+            ProductJsonWriter.writeAll(generator, products);
+        }
+
+        assertThat(json.toString()).isEqualTo(objectMapper.writeValueAsString(products));
+    }
+}